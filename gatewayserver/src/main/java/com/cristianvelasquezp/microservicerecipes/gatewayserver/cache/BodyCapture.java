@@ -0,0 +1,94 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds a response body back until it is complete, hands the bytes to a callback, and then sends
+ * them on as a single buffer. Nothing has been written when the callback runs, so it can still set
+ * headers. A body that grows past the limit is not held any longer: what was held so far is sent
+ * and the rest streams through as it arrives, without the callback; {@code onOverflow} is told
+ * instead.
+ */
+public final class BodyCapture {
+
+	private final int maxBytes;
+
+	private final List<DataBuffer> held = new ArrayList<>();
+
+	private final Runnable onOverflow;
+
+	private int size;
+
+	private boolean overflowed;
+
+	private BodyCapture(int maxBytes, Runnable onOverflow) {
+		this.maxBytes = maxBytes;
+		this.onOverflow = onOverflow;
+	}
+
+	public static Flux<DataBuffer> capture(Publisher<? extends DataBuffer> body, int maxBytes,
+										   DataBufferFactory bufferFactory, Consumer<byte[]> onCaptured) {
+		return capture(body, maxBytes, bufferFactory, onCaptured, () -> {
+		});
+	}
+
+	public static Flux<DataBuffer> capture(Publisher<? extends DataBuffer> body, int maxBytes,
+										   DataBufferFactory bufferFactory, Consumer<byte[]> onCaptured, Runnable onOverflow) {
+		return Flux.defer(() -> {
+			BodyCapture capture = new BodyCapture(maxBytes, onOverflow);
+			return Flux.<DataBuffer>from(body)
+					.concatMap(capture::hold)
+					.concatWith(Flux.defer(() -> capture.complete(bufferFactory, onCaptured)))
+					.doFinally(signal -> capture.release())
+					.doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+		});
+	}
+
+	private synchronized Flux<DataBuffer> hold(DataBuffer buffer) {
+		if (overflowed) {
+			return Flux.just(buffer);
+		}
+		held.add(buffer);
+		size += buffer.readableByteCount();
+		if (size <= maxBytes) {
+			return Flux.empty();
+		}
+		overflowed = true;
+		List<DataBuffer> sent = new ArrayList<>(held);
+		held.clear();
+		onOverflow.run();
+		return Flux.fromIterable(sent);
+	}
+
+	private synchronized Flux<DataBuffer> complete(DataBufferFactory bufferFactory, Consumer<byte[]> onCaptured) {
+		if (overflowed) {
+			return Flux.empty();
+		}
+		byte[] body = new byte[size];
+		int offset = 0;
+		for (DataBuffer buffer : held) {
+			int length = buffer.readableByteCount();
+			buffer.read(body, offset, length);
+			offset += length;
+		}
+		release();
+		onCaptured.accept(body);
+		return Flux.just(bufferFactory.wrap(body));
+	}
+
+	/**
+	 * Releases buffers still held when the body fails or the client goes away.
+	 */
+	private synchronized void release() {
+		held.forEach(DataBufferUtils::release);
+		held.clear();
+	}
+}
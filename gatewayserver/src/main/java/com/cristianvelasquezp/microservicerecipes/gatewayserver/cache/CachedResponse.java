@@ -0,0 +1,42 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response as stored by {@link ResponseCache}. The headers are the ones to send again on a hit,
+ * without hop-by-hop headers and without a length, which follows from the body.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String etag,
+							 Instant lastModified, Instant storedAt, Duration ttl) {
+
+	private static final List<String> NOT_STORED = List.of(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH,
+			HttpHeaders.DATE, HttpHeaders.TRANSFER_ENCODING, "Keep-Alive");
+
+	public static CachedResponse of(HttpStatusCode status, HttpHeaders headers, byte[] body, String etag,
+									Instant lastModified, Duration ttl) {
+		HttpHeaders stored = new HttpHeaders();
+		stored.addAll(headers);
+		NOT_STORED.forEach(stored::remove);
+		return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(stored), body, etag, lastModified, Instant.now(), ttl);
+	}
+
+	/**
+	 * Approximate bytes held by this entry, counted against the cache's maximum size.
+	 */
+	int weight() {
+		int weight = body.length + etag.length();
+		for (Map.Entry<String, List<String>> header : headers.headerSet()) {
+			weight += header.getKey().length();
+			for (String value : header.getValue()) {
+				weight += value.length();
+			}
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,173 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Responses kept in gateway memory, bounded by their total size in bytes. Each response expires
+ * after the time to live of the route that stored it. Responses are keyed by path, query and
+ * {@code Accept} header, so a JSON and a CBOR representation of the same resource are kept apart,
+ * and grouped by path, so a write to a resource drops all of them at once.
+ */
+@Component
+public class ResponseCache {
+
+	private static final int GENERATION_STRIPES = 4096;
+
+	private final Cache<String, Variants> entries;
+
+	private final int maxEntryBytes;
+
+	/**
+	 * Generations of the paths, hashed into a fixed number of stripes; a path's stripe is
+	 * incremented when it is evicted. A response read before an eviction of its path may be older
+	 * than the write that caused it, and is not stored; see {@link #put}. Paths sharing a stripe
+	 * share the generation, so an eviction now and then also drops a response fetched for another
+	 * path at the same time, which costs that path one more miss.
+	 */
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+	public ResponseCache(@Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+						 @Value("${gateway.response-cache.max-entry-size:256KB}") DataSize maxEntrySize,
+						 MeterRegistry meterRegistry) {
+		this.entries = Caffeine.newBuilder()
+				.maximumWeight(maxSize.toBytes())
+				.weigher((String path, Variants variants) -> path.length() + variants.weight())
+				.expireAfter(new Expiry<String, Variants>() {
+					@Override
+					public long expireAfterCreate(String path, Variants variants, long currentTime) {
+						return variants.ttl().toNanos();
+					}
+
+					@Override
+					public long expireAfterUpdate(String path, Variants variants, long currentTime, long currentDuration) {
+						return variants.ttl().toNanos();
+					}
+
+					@Override
+					public long expireAfterRead(String path, Variants variants, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+		this.maxEntryBytes = (int) maxEntrySize.toBytes();
+		CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.responses");
+	}
+
+	public static String key(ServerHttpRequest request) {
+		String query = request.getURI().getRawQuery();
+		return request.getPath().value() + '\n' + (query == null ? "" : query) + '\n'
+				+ String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT));
+	}
+
+	private static String path(String key) {
+		return key.substring(0, key.indexOf('\n'));
+	}
+
+	private static int stripe(String path) {
+		return Math.floorMod(path.hashCode(), GENERATION_STRIPES);
+	}
+
+	public CachedResponse get(String key) {
+		Variants variants = entries.getIfPresent(path(key));
+		return variants == null ? null : variants.get(key);
+	}
+
+	/**
+	 * To be read before the response for {@code key} is fetched, and handed to {@link #put}.
+	 */
+	public long generation(String key) {
+		return generations.get(stripe(path(key)));
+	}
+
+	/**
+	 * Stores the response unless its path was evicted since {@code generation} was read, that is,
+	 * while the response was being fetched.
+	 */
+	public void put(String key, CachedResponse response, long generation) {
+		String path = path(key);
+		int stripe = stripe(path);
+		if (generations.get(stripe) != generation) {
+			return;
+		}
+		entries.asMap().compute(path, (cachedPath, variants) -> Variants.with(variants, key, response));
+		// An eviction that ran between the check and the put may have missed the new response.
+		if (generations.get(stripe) != generation) {
+			entries.invalidate(path);
+		}
+	}
+
+	/**
+	 * Drops every response stored for {@code path}, whatever its query and {@code Accept} header.
+	 */
+	public void evict(String path) {
+		generations.incrementAndGet(stripe(path));
+		entries.invalidate(path);
+	}
+
+	public int maxEntryBytes() {
+		return maxEntryBytes;
+	}
+
+	/**
+	 * The responses stored for one path, by key. Replaced as a whole when one is added; a path
+	 * rarely has more than a couple.
+	 */
+	private record Variants(Map<String, CachedResponse> responses, Duration ttl) {
+
+		static Variants with(Variants variants, String key, CachedResponse response) {
+			Instant now = Instant.now();
+			Map<String, CachedResponse> responses = new HashMap<>();
+			if (variants != null) {
+				variants.responses().forEach((storedKey, stored) -> {
+					if (!expired(stored, now)) {
+						responses.put(storedKey, stored);
+					}
+				});
+			}
+			responses.put(key, response);
+			Instant lastExpiry = responses.values().stream()
+					.map(stored -> stored.storedAt().plus(stored.ttl()))
+					.max(Comparator.naturalOrder())
+					.orElseThrow();
+			return new Variants(Map.copyOf(responses), Duration.between(now, lastExpiry));
+		}
+
+		/**
+		 * The response for {@code key}; the path expires with its last response, so the others are
+		 * checked here.
+		 */
+		CachedResponse get(String key) {
+			CachedResponse response = responses.get(key);
+			return response == null || expired(response, Instant.now()) ? null : response;
+		}
+
+		private static boolean expired(CachedResponse response, Instant now) {
+			return !now.isBefore(response.storedAt().plus(response.ttl()));
+		}
+
+		int weight() {
+			int weight = 0;
+			for (Map.Entry<String, CachedResponse> response : responses.entrySet()) {
+				weight += response.getKey().length() + response.getValue().weight();
+			}
+			return weight;
+		}
+	}
+}
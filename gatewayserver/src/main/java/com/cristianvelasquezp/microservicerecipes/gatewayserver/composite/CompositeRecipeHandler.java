@@ -0,0 +1,119 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.composite;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves a recipe together with its author in one response, so a client makes one round trip
+ * instead of two. The recipe comes from the recipes service; its {@code userId} is then looked up
+ * in the users service, for the public fields only, and set on the recipe as {@code user}. If the
+ * users service fails or is slower than its timeout, the recipe is still returned, with a null
+ * user and the {@value #PARTIAL_HEADER} header naming the missing part. Each call is timed by leg
+ * and outcome.
+ */
+@Component
+public class CompositeRecipeHandler {
+
+	public static final String PARTIAL_HEADER = "X-Partial-Response";
+
+	static final String LEG_METRIC = "gateway.composite.leg";
+
+	static final String USER_FIELDS = "username,firstName,lastName";
+
+	private final WebClient webClient;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Duration recipeTimeout;
+
+	private final Duration userTimeout;
+
+	public CompositeRecipeHandler(WebClient.Builder webClientBuilder, LoadBalancedExchangeFilterFunction loadBalancerFilter,
+								  MeterRegistry meterRegistry,
+								  @Value("${gateway.composite.recipe-timeout:2s}") Duration recipeTimeout,
+								  @Value("${gateway.composite.user-timeout:500ms}") Duration userTimeout) {
+		// Boot's builder is a new one for each bean; only this client resolves service names.
+		this.webClient = webClientBuilder.filter(loadBalancerFilter).build();
+		this.meterRegistry = meterRegistry;
+		this.recipeTimeout = recipeTimeout;
+		this.userTimeout = userTimeout;
+	}
+
+	public Mono<ServerResponse> getRecipeWithUser(ServerRequest request) {
+		Mono<ObjectNode> recipe = webClient.get()
+				.uri("http://recipes/recipes/{id}", request.pathVariable("id"))
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.bodyToMono(ObjectNode.class)
+				.timeout(recipeTimeout);
+		return timed("recipe", recipe)
+				.flatMap(this::withUser)
+				.onErrorResume(WebClientResponseException.class, e -> ServerResponse.status(
+						e.getStatusCode().is4xxClientError() ? e.getStatusCode() : HttpStatus.BAD_GATEWAY).build())
+				.onErrorResume(TimeoutException.class, e -> ServerResponse.status(HttpStatus.GATEWAY_TIMEOUT).build())
+				.onErrorResume(e -> ServerResponse.status(HttpStatus.BAD_GATEWAY).build());
+	}
+
+	private Mono<ServerResponse> withUser(ObjectNode recipe) {
+		JsonNode userId = recipe.path("userId");
+		if (!userId.canConvertToLong()) {
+			recipe.set("user", NullNode.getInstance());
+			return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(recipe);
+		}
+		Mono<JsonNode> user = webClient.get()
+				.uri("http://users/users/{id}?fields={fields}", userId.asLong(), USER_FIELDS)
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.bodyToMono(JsonNode.class)
+				.timeout(userTimeout);
+		return timed("user", user)
+				.onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(NullNode.getInstance()))
+				.flatMap(found -> {
+					recipe.set("user", found);
+					return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(recipe);
+				})
+				.onErrorResume(e -> {
+					recipe.set("user", NullNode.getInstance());
+					return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).header(PARTIAL_HEADER, "user").bodyValue(recipe);
+				});
+	}
+
+	private <T> Mono<T> timed(String leg, Mono<T> call) {
+		return Mono.defer(() -> {
+			Timer.Sample sample = Timer.start(meterRegistry);
+			return call
+					.doOnSuccess(result -> sample.stop(timer(leg, "success")))
+					.doOnError(e -> sample.stop(timer(leg, outcome(e))));
+		});
+	}
+
+	private Timer timer(String leg, String outcome) {
+		return Timer.builder(LEG_METRIC).tag("leg", leg).tag("outcome", outcome).register(meterRegistry);
+	}
+
+	private static String outcome(Throwable e) {
+		if (e instanceof TimeoutException) {
+			return "timeout";
+		}
+		if (e instanceof WebClientResponseException.NotFound) {
+			return "not_found";
+		}
+		return "error";
+	}
+}
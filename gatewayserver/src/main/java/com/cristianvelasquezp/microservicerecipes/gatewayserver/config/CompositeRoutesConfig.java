@@ -0,0 +1,22 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.config;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.composite.CompositeRecipeHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Endpoints the gateway answers itself by combining calls to several services. They are matched
+ * before the gateway routes, so route filters such as the rate limiter do not apply to them.
+ */
+@Configuration
+public class CompositeRoutesConfig {
+
+	@Bean
+	public RouterFunction<ServerResponse> compositeRoutes(CompositeRecipeHandler compositeRecipeHandler) {
+		return RouterFunctions.route(RequestPredicates.GET("/composite/recipes/{id}"), compositeRecipeHandler::getRecipeWithUser);
+	}
+}
@@ -0,0 +1,14 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.config;
+
+import com.cristianvelasquezp.microservicerecipes.loadbalancer.PowerOfTwoChoicesLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@code lb://} routes and the load-balanced WebClient pick instances with the power of two
+ * choices instead of round robin.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,195 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.filters;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.BodyCapture;
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.ResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Merges identical GETs on a route that arrive while one of them is on its way to the service, e.g.
+ * {@code Coalesce=1s}: the first goes through, and the others wait up to {@code maxWait} for its
+ * response and get a copy of it. Requests are identical when their path, query and Accept header
+ * are, as for {@link ResponseCache}; requests with credentials, conditions or a range are never
+ * merged, as their answers may differ. Responses are shared whatever their status, but not when
+ * they set a cookie or their body is larger than {@code gateway.coalescing.max-body-size}. A
+ * waiting request that is not given a copy in time, or whose response cannot be shared, goes to the
+ * service itself. Declared after {@code ResponseCache}, only requests the cache misses are merged.
+ */
+@Component
+public class CoalesceGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+	static final String REQUESTS_METRIC = "gateway.coalescing.requests";
+
+	private static final List<String> NOT_MERGED = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE,
+			HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_NONE_MATCH, HttpHeaders.RANGE);
+
+	private static final List<String> NOT_SHARED = List.of(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH,
+			HttpHeaders.TRANSFER_ENCODING, "Keep-Alive");
+
+	private final Map<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+	private final int maxBodyBytes;
+
+	private final MeterRegistry meterRegistry;
+
+	public CoalesceGatewayFilterFactory(@Value("${gateway.coalescing.max-body-size:256KB}") DataSize maxBodySize,
+										MeterRegistry meterRegistry) {
+		super(Config.class);
+		this.maxBodyBytes = (int) maxBodySize.toBytes();
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("maxWait");
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		// Runs before NettyWriteResponseFilter so the decorated response is the one the body is written to.
+		return new OrderedGatewayFilter((exchange, chain) -> {
+			ServerHttpRequest request = exchange.getRequest();
+			if (!HttpMethod.GET.equals(request.getMethod()) || NOT_MERGED.stream().anyMatch(request.getHeaders()::containsKey)) {
+				return chain.filter(exchange);
+			}
+			String routeId = routeId(exchange);
+			// Routes have their own filters, so the same request may be sent differently on each.
+			String key = routeId + '\n' + ResponseCache.key(request);
+			CompletableFuture<SharedResponse> flight = new CompletableFuture<>();
+			CompletableFuture<SharedResponse> leading = inFlight.putIfAbsent(key, flight);
+			if (leading != null) {
+				return join(exchange, chain, leading, config.getMaxWait(), routeId);
+			}
+			count(routeId, "sent");
+			// Waiting requests may accept other encodings; the gateway compresses the copy for each.
+			ServerHttpRequest upstream = request.mutate().headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING)).build();
+			SharingResponse response = new SharingResponse(exchange.getResponse(), key, flight);
+			return chain.filter(exchange.mutate().request(upstream).response(response).build())
+					// Failed or cancelled without a response to share; the waiting requests go themselves.
+					.doFinally(signal -> response.share(null));
+		}, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+	}
+
+	private Mono<Void> join(ServerWebExchange exchange, GatewayFilterChain chain, CompletableFuture<SharedResponse> flight,
+							Duration maxWait, String routeId) {
+		// Cancelling a waiting request must not cancel the flight the others are waiting for.
+		return Mono.fromFuture(flight, true)
+				.doOnSuccess(shared -> count(routeId, shared != null ? "joined" : "not_shared"))
+				.timeout(maxWait, Mono.<SharedResponse>fromRunnable(() -> count(routeId, "timed_out")))
+				.map(shared -> writeShared(exchange.getResponse(), shared))
+				.defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+				.flatMap(Function.identity());
+	}
+
+	private static Mono<Void> writeShared(ServerHttpResponse response, SharedResponse shared) {
+		response.setStatusCode(shared.status());
+		HttpHeaders headers = response.getHeaders();
+		headers.addAll(shared.headers());
+		headers.setContentLength(shared.body().length);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+	}
+
+	private static String routeId(ServerWebExchange exchange) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		return route == null ? "unknown" : route.getId();
+	}
+
+	private void count(String routeId, String outcome) {
+		meterRegistry.counter(REQUESTS_METRIC, "route", routeId, "outcome", outcome).increment();
+	}
+
+	/**
+	 * A response as copied to the waiting requests: without hop-by-hop headers and without a
+	 * length, which follows from the body.
+	 */
+	private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+		static SharedResponse of(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+			HttpHeaders shared = new HttpHeaders();
+			shared.addAll(headers);
+			NOT_SHARED.forEach(shared::remove);
+			return new SharedResponse(status, HttpHeaders.readOnlyHttpHeaders(shared), body);
+		}
+	}
+
+	/**
+	 * Holds a shareable body back until it is complete, hands a copy to the waiting requests, and
+	 * sends it on.
+	 */
+	private class SharingResponse extends ServerHttpResponseDecorator {
+
+		private final String key;
+
+		private final CompletableFuture<SharedResponse> flight;
+
+		SharingResponse(ServerHttpResponse delegate, String key, CompletableFuture<SharedResponse> flight) {
+			super(delegate);
+			this.key = key;
+			this.flight = flight;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			HttpHeaders headers = getHeaders();
+			if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+					|| headers.getContentLength() > maxBodyBytes) {
+				share(null);
+				return super.writeWith(body);
+			}
+			return super.writeWith(BodyCapture.capture(body, maxBodyBytes, bufferFactory(),
+					captured -> share(SharedResponse.of(getStatusCode(), headers, captured)), () -> share(null)));
+		}
+
+		/**
+		 * Ends the flight, so requests arriving from now on start a new one, and hands the response
+		 * to the requests waiting for it; {@code null} sends them to the service themselves. Only
+		 * the first call counts.
+		 */
+		void share(SharedResponse shared) {
+			if (flight.isDone()) {
+				return;
+			}
+			inFlight.remove(key, flight);
+			flight.complete(shared);
+		}
+	}
+
+	public static class Config {
+
+		private Duration maxWait = Duration.ofSeconds(1);
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+	}
+}
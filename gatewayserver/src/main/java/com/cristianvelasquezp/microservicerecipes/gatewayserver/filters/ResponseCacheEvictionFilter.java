@@ -0,0 +1,106 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.filters;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.BodyCapture;
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.ResponseCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Evicts the cached responses of the resource a write changes, on any route, both before the write
+ * is sent and once it has completed, so a read that raced the write is not served from the cache
+ * afterwards. A write changes the resource at its own path; the services also take updates on the
+ * collection, with the id in the body, so a successful PUT or PATCH whose JSON response carries an
+ * {@code id} evicts {@code path/id} as well. A POST creates a resource nothing was cached for, and
+ * evicts nothing.
+ */
+@Component
+public class ResponseCacheEvictionFilter implements GlobalFilter, Ordered {
+
+	private static final Set<HttpMethod> WRITES = Set.of(HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+	private static final Set<HttpMethod> UPDATES = Set.of(HttpMethod.PUT, HttpMethod.PATCH);
+
+	private final ResponseCache responseCache;
+
+	private final ObjectMapper objectMapper;
+
+	public ResponseCacheEvictionFilter(ResponseCache responseCache, ObjectMapper objectMapper) {
+		this.responseCache = responseCache;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		HttpMethod method = exchange.getRequest().getMethod();
+		if (!WRITES.contains(method)) {
+			return chain.filter(exchange);
+		}
+		// The path as the client sent it, before a route filter rewrites it; that is how entries are keyed.
+		String path = exchange.getRequest().getPath().value();
+		responseCache.evict(path);
+		ServerWebExchange written = UPDATES.contains(method)
+				? exchange.mutate().response(new UpdatedResourceResponse(exchange.getResponse(), path)).build()
+				: exchange;
+		return chain.filter(written).doFinally(signal -> responseCache.evict(path));
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	/**
+	 * Reads the id of the updated resource from a successful JSON response and evicts it before the
+	 * response is sent on. A body larger than {@code gateway.response-cache.max-entry-size} is not
+	 * read, as such a response could not have been cached either.
+	 */
+	private class UpdatedResourceResponse extends ServerHttpResponseDecorator {
+
+		private final String path;
+
+		UpdatedResourceResponse(ServerHttpResponse delegate, String path) {
+			super(delegate);
+			this.path = path;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			HttpStatusCode status = getStatusCode();
+			HttpHeaders headers = getHeaders();
+			MediaType contentType = headers.getContentType();
+			if (status == null || !status.is2xxSuccessful() || contentType == null || !contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+					|| headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.getContentLength() > responseCache.maxEntryBytes()) {
+				return super.writeWith(body);
+			}
+			return super.writeWith(BodyCapture.capture(body, responseCache.maxEntryBytes(), bufferFactory(), this::evictUpdated));
+		}
+
+		private void evictUpdated(byte[] body) {
+			try {
+				JsonNode id = objectMapper.readTree(body).path("id");
+				if (id.isIntegralNumber() || id.isTextual() && !id.asText().isBlank()) {
+					responseCache.evict((path.endsWith("/") ? path : path + "/") + id.asText());
+				}
+			} catch (IOException e) {
+				// Not a JSON object; there is no id to evict.
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.filters;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.BodyCapture;
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.CachedResponse;
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.cache.ResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Serves repeated GETs on a route from {@link ResponseCache}, for {@code ttl} after the first one
+ * went through, e.g. {@code ResponseCache=5m}. Responses are given an ETag (the MD5 of the body,
+ * unless the service sent one) and a Last-Modified date. A request whose {@code If-None-Match} or
+ * {@code If-Modified-Since} matches the cached response gets a 304 without reaching the service.
+ * Only complete 200 responses up to {@code gateway.response-cache.max-entry-size} are stored, and
+ * not when they set a cookie or forbid it with {@code Cache-Control}. Writes evict entries through
+ * {@link ResponseCacheEvictionFilter}.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+	static final String REQUESTS_METRIC = "gateway.response.cache.requests";
+
+	private static final List<String> SENT_WITH_304 = List.of(HttpHeaders.CACHE_CONTROL, HttpHeaders.CONTENT_LOCATION,
+			HttpHeaders.EXPIRES, HttpHeaders.VARY);
+
+	private final ResponseCache responseCache;
+
+	private final MeterRegistry meterRegistry;
+
+	public ResponseCacheGatewayFilterFactory(ResponseCache responseCache, MeterRegistry meterRegistry) {
+		super(Config.class);
+		this.responseCache = responseCache;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("ttl");
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		// Runs before NettyWriteResponseFilter so the decorated response is the one the body is written to.
+		return new OrderedGatewayFilter((exchange, chain) -> {
+			ServerHttpRequest request = exchange.getRequest();
+			if (!HttpMethod.GET.equals(request.getMethod()) || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+				return chain.filter(exchange);
+			}
+			String routeId = routeId(exchange);
+			String key = ResponseCache.key(request);
+			String cacheControl = request.getHeaders().getCacheControl();
+			CachedResponse cached = cacheControl != null && cacheControl.contains("no-cache") ? null : responseCache.get(key);
+			if (cached != null) {
+				if (notModified(request.getHeaders(), cached)) {
+					count(routeId, "not_modified");
+					return writeNotModified(exchange.getResponse(), cached);
+				}
+				count(routeId, "hit");
+				return writeCached(exchange.getResponse(), cached);
+			}
+			count(routeId, "miss");
+			// The body is stored as the service sent it; the gateway compresses it for the client.
+			ServerHttpRequest upstream = request.mutate().headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING)).build();
+			ServerHttpResponse response = new CapturingResponse(exchange.getResponse(), key, config.getTtl(), responseCache.generation(key));
+			return chain.filter(exchange.mutate().request(upstream).response(response).build());
+		}, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+	}
+
+	private static boolean notModified(HttpHeaders headers, CachedResponse cached) {
+		List<String> ifNoneMatch = headers.getIfNoneMatch();
+		if (!ifNoneMatch.isEmpty()) {
+			return ifNoneMatch.stream().anyMatch(etag -> etag.equals("*") || opaque(etag).equals(opaque(cached.etag())));
+		}
+		long ifModifiedSince = headers.getIfModifiedSince();
+		return ifModifiedSince >= 0 && cached.lastModified().toEpochMilli() <= ifModifiedSince;
+	}
+
+	/**
+	 * The ETag without its weak prefix; If-None-Match compares ETags weakly.
+	 */
+	private static String opaque(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	private static Mono<Void> writeNotModified(ServerHttpResponse response, CachedResponse cached) {
+		response.setStatusCode(HttpStatus.NOT_MODIFIED);
+		HttpHeaders headers = response.getHeaders();
+		headers.setETag(cached.etag());
+		headers.setLastModified(cached.lastModified());
+		for (String name : SENT_WITH_304) {
+			List<String> values = cached.headers().get(name);
+			if (values != null) {
+				headers.put(name, values);
+			}
+		}
+		return response.setComplete();
+	}
+
+	private static Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+		response.setStatusCode(cached.status());
+		HttpHeaders headers = response.getHeaders();
+		headers.addAll(cached.headers());
+		headers.setETag(cached.etag());
+		headers.setLastModified(cached.lastModified());
+		headers.set(HttpHeaders.AGE, String.valueOf(Duration.between(cached.storedAt(), Instant.now()).toSeconds()));
+		headers.setContentLength(cached.body().length);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+	}
+
+	private static String routeId(ServerWebExchange exchange) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		return route == null ? "unknown" : route.getId();
+	}
+
+	private void count(String routeId, String outcome) {
+		meterRegistry.counter(REQUESTS_METRIC, "route", routeId, "outcome", outcome).increment();
+	}
+
+	/**
+	 * Holds a storable body back until it is complete, stores it, and sends it on with the ETag
+	 * and Last-Modified headers set.
+	 */
+	private class CapturingResponse extends ServerHttpResponseDecorator {
+
+		private final String key;
+
+		private final Duration ttl;
+
+		private final long generation;
+
+		CapturingResponse(ServerHttpResponse delegate, String key, Duration ttl, long generation) {
+			super(delegate);
+			this.key = key;
+			this.ttl = ttl;
+			this.generation = generation;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			if (!storable(getHeaders())) {
+				return super.writeWith(body);
+			}
+			return super.writeWith(BodyCapture.capture(body, responseCache.maxEntryBytes(), bufferFactory(), captured -> {
+				HttpHeaders headers = getHeaders();
+				String etag = headers.getETag() != null ? headers.getETag() : "\"" + DigestUtils.md5DigestAsHex(captured) + "\"";
+				long lastModified = headers.getLastModified();
+				Instant modified = lastModified >= 0 ? Instant.ofEpochMilli(lastModified) : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+				headers.setETag(etag);
+				headers.setLastModified(modified);
+				responseCache.put(key, CachedResponse.of(getStatusCode(), headers, captured, etag, modified, ttl), generation);
+			}));
+		}
+
+		private boolean storable(HttpHeaders headers) {
+			String cacheControl = headers.getCacheControl();
+			return HttpStatus.OK.equals(getStatusCode())
+					&& !headers.containsKey(HttpHeaders.SET_COOKIE)
+					&& !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+					&& !headers.getVary().contains("*")
+					&& (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")))
+					&& headers.getContentLength() <= responseCache.maxEntryBytes();
+		}
+	}
+
+	public static class Config {
+
+		private Duration ttl = Duration.ofMinutes(1);
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter held in the gateway's memory, for the {@code LocalRequestRateLimiter}
+ * filter in place of the Redis one. Each key of a route has a bucket of {@code burst-capacity}
+ * requests that refills at {@code replenish-rate} per second. Limits are per gateway instance.
+ * <p>
+ * A bucket is a single {@link AtomicLong}: the time at which it will be full again (the
+ * theoretical arrival time of the generic cell rate algorithm). A request moves that time one
+ * interval forward with a compare-and-set, unless doing so would take the bucket past its burst,
+ * so the limiter takes no locks and, for a key it has seen before, allocates nothing. Buckets
+ * that have filled up again are dropped every ten seconds; to a returning key, a dropped bucket
+ * and a full one are the same.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<RateLimiterProperties.Limit> {
+
+	public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+	static final String REQUESTS_METRIC = "gateway.ratelimit.requests";
+
+	static final String KEYS_METRIC = "gateway.ratelimit.keys";
+
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private static final Mono<Response> ALLOWED = Mono.just(new Response(true, Map.of()));
+
+	private final RateLimiterProperties properties;
+
+	private final MeterRegistry meterRegistry;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<String, RouteBuckets> routes = new ConcurrentHashMap<>();
+
+	private final AtomicLong nextSweep;
+
+	@Autowired
+	public LocalRateLimiter(RateLimiterProperties properties, ConfigurationService configurationService, MeterRegistry meterRegistry) {
+		this(properties, configurationService, meterRegistry, System::nanoTime);
+	}
+
+	LocalRateLimiter(RateLimiterProperties properties, ConfigurationService configurationService, MeterRegistry meterRegistry,
+					 LongSupplier nanoClock) {
+		super(RateLimiterProperties.Limit.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.nanoClock = nanoClock;
+		this.nextSweep = new AtomicLong(nanoClock.getAsLong() + SWEEP_INTERVAL_NANOS);
+	}
+
+	@Override
+	public Mono<Response> isAllowed(String routeId, String id) {
+		long waitNanos = tryAcquire(routeId, id);
+		if (waitNanos == 0) {
+			return ALLOWED;
+		}
+		long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+		return Mono.just(new Response(false, Map.of(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))));
+	}
+
+	/**
+	 * @return 0 if the request is allowed, otherwise the nanoseconds until this key may send again
+	 */
+	long tryAcquire(String routeId, String id) {
+		long now = nanoClock.getAsLong();
+		sweepIfDue(now);
+		RouteBuckets route = routes.get(routeId);
+		if (route == null) {
+			route = routes.computeIfAbsent(routeId, key -> new RouteBuckets(key, meterRegistry));
+		}
+		AtomicLong bucket = route.buckets.get(id);
+		if (bucket == null) {
+			bucket = route.buckets.computeIfAbsent(id, key -> new AtomicLong(now));
+		}
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate(routeId));
+		long tolerance = interval * burstCapacity(routeId);
+		while (true) {
+			long full = bucket.get();
+			long next = Math.max(full, now) + interval;
+			long excess = next - now - tolerance;
+			if (excess > 0) {
+				route.denied.increment();
+				return excess;
+			}
+			if (bucket.compareAndSet(full, next)) {
+				route.allowed.increment();
+				return 0;
+			}
+		}
+	}
+
+	private void sweepIfDue(long now) {
+		long due = nextSweep.get();
+		if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+			return;
+		}
+		for (RouteBuckets route : routes.values()) {
+			route.buckets.values().removeIf(bucket -> bucket.get() <= now);
+		}
+	}
+
+	/**
+	 * The properties are validated when they are bound, but a rebind that fails validation may
+	 * leave the values it had already set; those are refused here rather than turned into an
+	 * interval or a tolerance that makes no sense.
+	 */
+	double replenishRate(String routeId) {
+		Double rate = routeSetting(routeId, RateLimiterProperties.Limit::getReplenishRate);
+		double replenishRate = rate != null ? rate : properties.getReplenishRate();
+		if (!(replenishRate > 0)) {
+			throw new IllegalStateException("The replenish rate of route " + routeId + " must be positive, not " + replenishRate);
+		}
+		return replenishRate;
+	}
+
+	int burstCapacity(String routeId) {
+		Integer burst = routeSetting(routeId, RateLimiterProperties.Limit::getBurstCapacity);
+		int burstCapacity = burst != null ? burst : properties.getBurstCapacity();
+		if (burstCapacity <= 0) {
+			throw new IllegalStateException("The burst capacity of route " + routeId + " must be positive, not " + burstCapacity);
+		}
+		return burstCapacity;
+	}
+
+	RateLimiterProperties.KeyType keyType(String routeId) {
+		RateLimiterProperties.KeyType key = routeSetting(routeId, RateLimiterProperties.Limit::getKey);
+		return key != null ? key : properties.getKey();
+	}
+
+	/**
+	 * A setting from the route's filter arguments, or else from its entry under
+	 * {@code gateway.rate-limiter.routes}, or null if neither sets it.
+	 */
+	private <T> T routeSetting(String routeId, Function<RateLimiterProperties.Limit, T> setting) {
+		RateLimiterProperties.Limit args = getConfig().get(routeId);
+		T value = args != null ? setting.apply(args) : null;
+		if (value == null) {
+			RateLimiterProperties.Limit route = properties.getRoutes().get(routeId);
+			value = route != null ? setting.apply(route) : null;
+		}
+		return value;
+	}
+
+	private static final class RouteBuckets {
+
+		private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+		private final Counter allowed;
+
+		private final Counter denied;
+
+		RouteBuckets(String routeId, MeterRegistry meterRegistry) {
+			this.allowed = meterRegistry.counter(REQUESTS_METRIC, "route", routeId, "outcome", "allowed");
+			this.denied = meterRegistry.counter(REQUESTS_METRIC, "route", routeId, "outcome", "denied");
+			Gauge.builder(KEYS_METRIC, buckets, Map::size).tag("route", routeId).register(meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@code RequestRateLimiter} filter with {@link LocalRateLimiter} and
+ * {@link RateLimitKeyResolver}, run ahead of every other route filter. Filters named in the
+ * configuration are ordered by their position, after the ones with an order of their own, such as
+ * {@code ResponseCache} and {@code Coalesce}; without one, responses from the cache and shared
+ * responses would not count against the limit.
+ */
+@Component
+public class LocalRequestRateLimiterGatewayFilterFactory extends RequestRateLimiterGatewayFilterFactory {
+
+	public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+	public LocalRequestRateLimiterGatewayFilterFactory(LocalRateLimiter rateLimiter, RateLimitKeyResolver keyResolver) {
+		super(rateLimiter, keyResolver);
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		return new OrderedGatewayFilter(super.apply(config), ORDER);
+	}
+}
@@ -0,0 +1,45 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Resolves the key a request is rate limited by: the client's address, its API key or the route,
+ * as {@link RateLimiterProperties} sets for the route.
+ */
+@Component
+public class RateLimitKeyResolver implements KeyResolver {
+
+	public static final String API_KEY_HEADER = "X-API-Key";
+
+	private final LocalRateLimiter rateLimiter;
+
+	public RateLimitKeyResolver(LocalRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	public Mono<String> resolve(ServerWebExchange exchange) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		String routeId = route == null ? "" : route.getId();
+		return Mono.just(switch (rateLimiter.keyType(routeId)) {
+			case ROUTE -> "route";
+			case API_KEY -> {
+				String apiKey = exchange.getRequest().getHeaders().getFirst(API_KEY_HEADER);
+				yield apiKey != null ? "key:" + apiKey : clientAddress(exchange);
+			}
+			case CLIENT -> clientAddress(exchange);
+		});
+	}
+
+	private static String clientAddress(ServerWebExchange exchange) {
+		InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+		return address == null || address.getAddress() == null ? "unknown" : address.getAddress().getHostAddress();
+	}
+}
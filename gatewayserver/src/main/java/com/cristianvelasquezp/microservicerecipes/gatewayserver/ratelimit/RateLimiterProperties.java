@@ -0,0 +1,134 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits applied by {@link LocalRateLimiter}, e.g.
+ * <pre>
+ * gateway:
+ *   rate-limiter:
+ *     replenish-rate: 100
+ *     burst-capacity: 200
+ *     key: client
+ *     routes:
+ *       recipe-by-id:
+ *         replenish-rate: 500
+ * </pre>
+ * A route entry overrides only the settings it names; the others come from the top level. The
+ * properties are rebound when the config server pushes a change, and the next request uses them.
+ * Rates and capacities must be positive; the gateway does not start with any other.
+ */
+@Component
+@Validated
+@ConfigurationProperties("gateway.rate-limiter")
+public class RateLimiterProperties {
+
+	/**
+	 * What a request is counted against.
+	 */
+	public enum KeyType {
+		/** The client's address. */
+		CLIENT,
+		/** The {@code X-API-Key} header, or the client's address for requests without one. */
+		API_KEY,
+		/** One bucket for the whole route. */
+		ROUTE
+	}
+
+	/**
+	 * Requests per second each key may sustain.
+	 */
+	@Positive
+	private double replenishRate = 100;
+
+	/**
+	 * Requests a key may send at once after being idle.
+	 */
+	@Positive
+	private int burstCapacity = 200;
+
+	@NotNull
+	private KeyType key = KeyType.CLIENT;
+
+	private Map<String, @Valid Limit> routes = new HashMap<>();
+
+	public double getReplenishRate() {
+		return replenishRate;
+	}
+
+	public void setReplenishRate(double replenishRate) {
+		this.replenishRate = replenishRate;
+	}
+
+	public int getBurstCapacity() {
+		return burstCapacity;
+	}
+
+	public void setBurstCapacity(int burstCapacity) {
+		this.burstCapacity = burstCapacity;
+	}
+
+	public KeyType getKey() {
+		return key;
+	}
+
+	public void setKey(KeyType key) {
+		this.key = key;
+	}
+
+	public Map<String, Limit> getRoutes() {
+		return routes;
+	}
+
+	public void setRoutes(Map<String, Limit> routes) {
+		this.routes = routes;
+	}
+
+	/**
+	 * Settings for one route; those left out fall back to the top level. Also the per-route
+	 * configuration of {@link LocalRateLimiter} when given as {@code local-rate-limiter.*}
+	 * arguments of a {@code LocalRequestRateLimiter} filter.
+	 */
+	public static class Limit {
+
+		@Positive
+		private Double replenishRate;
+
+		@Positive
+		private Integer burstCapacity;
+
+		private KeyType key;
+
+		public Double getReplenishRate() {
+			return replenishRate;
+		}
+
+		public void setReplenishRate(Double replenishRate) {
+			this.replenishRate = replenishRate;
+		}
+
+		public Integer getBurstCapacity() {
+			return burstCapacity;
+		}
+
+		public void setBurstCapacity(Integer burstCapacity) {
+			this.burstCapacity = burstCapacity;
+		}
+
+		public KeyType getKey() {
+			return key;
+		}
+
+		public void setKey(KeyType key) {
+			this.key = key;
+		}
+	}
+}
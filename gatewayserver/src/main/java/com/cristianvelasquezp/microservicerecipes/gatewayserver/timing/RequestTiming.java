@@ -0,0 +1,53 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+/**
+ * When a request reached each phase, in {@link System#nanoTime()}. Started by
+ * {@link RequestTimingFilter}; the connection and response times are set by
+ * {@link RequestTimingHttpClientCustomizer}, which finds this object in the Reactor context. A
+ * phase the request never reached, such as connecting for a response served from the cache,
+ * stays at {@link #NOT_REACHED}.
+ */
+public final class RequestTiming {
+
+	static final long NOT_REACHED = Long.MIN_VALUE;
+
+	private final long start;
+
+	private volatile long connecting = NOT_REACHED;
+
+	private volatile long connected = NOT_REACHED;
+
+	private volatile long firstByte = NOT_REACHED;
+
+	RequestTiming(long start) {
+		this.start = start;
+	}
+
+	long start() {
+		return start;
+	}
+
+	long connecting() {
+		return connecting;
+	}
+
+	long connected() {
+		return connected;
+	}
+
+	long firstByte() {
+		return firstByte;
+	}
+
+	void connecting(long nanos) {
+		this.connecting = nanos;
+	}
+
+	void connected(long nanos) {
+		this.connected = nanos;
+	}
+
+	void firstByte(long nanos) {
+		this.firstByte = nanos;
+	}
+}
@@ -0,0 +1,148 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times every routed request, from the gateway receiving it to the response being sent, into a
+ * timer per route and service instance with published percentiles. Micrometer keeps those in
+ * HdrHistogram-based sliding windows. Instances come and go, so a timer nothing was recorded in
+ * for {@code gateway.timing.meter-expiry} is removed from the registry, at the latest after twice
+ * that. Requests slow enough for {@link SlowRequestLog} are added to it with their phase timings.
+ */
+@Component
+public class RequestTimingFilter implements GlobalFilter, Ordered {
+
+	static final String LATENCY_METRIC = "gateway.route.latency";
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final MeterRegistry meterRegistry;
+
+	private final SlowRequestLog slowRequestLog;
+
+	private final long meterExpiryNanos;
+
+	private final Map<LatencyKey, Latency> latencies = new ConcurrentHashMap<>();
+
+	private final AtomicLong nextExpiry;
+
+	public RequestTimingFilter(MeterRegistry meterRegistry, SlowRequestLog slowRequestLog,
+							   @Value("${gateway.timing.meter-expiry:10m}") Duration meterExpiry) {
+		if (meterExpiry.isNegative() || meterExpiry.isZero()) {
+			throw new IllegalStateException("The latency meter expiry must be positive, not " + meterExpiry);
+		}
+		this.meterRegistry = meterRegistry;
+		this.slowRequestLog = slowRequestLog;
+		this.meterExpiryNanos = meterExpiry.toNanos();
+		this.nextExpiry = new AtomicLong(System.nanoTime() + meterExpiryNanos);
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		RequestTiming timing = new RequestTiming(System.nanoTime());
+		return chain.filter(exchange)
+				.doFinally(signal -> record(exchange, timing, System.nanoTime()))
+				.contextWrite(context -> context.put(RequestTiming.class, timing));
+	}
+
+	private void record(ServerWebExchange exchange, RequestTiming timing, long end) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		String routeId = route == null ? "unknown" : route.getId();
+		String instance = instance(exchange);
+		long totalNanos = end - timing.start();
+		recordLatency(routeId, instance, totalNanos, end);
+
+		double totalMs = totalNanos / NANOS_PER_MILLI;
+		if (slowRequestLog.isSlowEnough(totalMs)) {
+			HttpStatusCode status = exchange.getResponse().getStatusCode();
+			slowRequestLog.offer(new SlowRequest(Instant.now(), exchange.getRequest().getMethod().name(),
+					exchange.getRequest().getPath().value(), routeId, instance, status == null ? null : status.value(), totalMs,
+					phase(timing.start(), timing.connecting() == RequestTiming.NOT_REACHED ? end : timing.connecting()),
+					phase(timing.connecting(), timing.connected()),
+					phase(timing.connected(), timing.firstByte())));
+		}
+	}
+
+	void recordLatency(String routeId, String instance, long totalNanos, long now) {
+		Latency latency = latencies.computeIfAbsent(new LatencyKey(routeId, instance), key -> new Latency(Timer.builder(LATENCY_METRIC)
+				.tag("route", key.routeId())
+				.tag("instance", key.instance())
+				.publishPercentiles(0.5, 0.95, 0.99, 0.999)
+				.register(meterRegistry)));
+		latency.lastRecorded = now;
+		latency.timer.record(totalNanos, TimeUnit.NANOSECONDS);
+		long expiry = nextExpiry.get();
+		if (now - expiry >= 0 && nextExpiry.compareAndSet(expiry, now + meterExpiryNanos)) {
+			expireLatencies(now);
+		}
+	}
+
+	/**
+	 * Removes the timers of instances that have not been sent a request for the expiry, which is
+	 * how instances that are gone look from here. A request timed at the same moment may be lost.
+	 */
+	private void expireLatencies(long now) {
+		latencies.forEach((key, latency) -> {
+			if (now - latency.lastRecorded >= meterExpiryNanos && latencies.remove(key, latency)) {
+				meterRegistry.remove(latency.timer);
+			}
+		});
+	}
+
+	/**
+	 * The service instance the request was sent to, as {@code host:port}, or {@code none} when it
+	 * was not sent, e.g. because the gateway answered it from its cache.
+	 */
+	private static String instance(ServerWebExchange exchange) {
+		URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+		if (url == null || url.getHost() == null || "lb".equals(url.getScheme())) {
+			return "none";
+		}
+		return url.getHost() + ":" + url.getPort();
+	}
+
+	private static Double phase(long from, long to) {
+		if (from == RequestTiming.NOT_REACHED || to == RequestTiming.NOT_REACHED) {
+			return null;
+		}
+		return (to - from) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private record LatencyKey(String routeId, String instance) {
+	}
+
+	private static final class Latency {
+
+		private final Timer timer;
+
+		private volatile long lastRecorded;
+
+		Latency(Timer timer) {
+			this.timer = timer;
+		}
+	}
+}
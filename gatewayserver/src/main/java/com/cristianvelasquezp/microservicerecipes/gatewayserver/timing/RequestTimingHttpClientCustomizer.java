@@ -0,0 +1,40 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Stamps the {@link RequestTiming} of a proxied request when the gateway's HTTP client starts
+ * getting a connection, when it sends the request on the connection it got (from the pool or newly
+ * opened) and when the response headers arrive.
+ */
+@Component
+public class RequestTimingHttpClientCustomizer implements HttpClientCustomizer {
+
+	@Override
+	public HttpClient customize(HttpClient httpClient) {
+		return httpClient
+				.mapConnect(connection -> Mono.deferContextual(context -> {
+					RequestTiming timing = context.getOrDefault(RequestTiming.class, null);
+					if (timing == null) {
+						return connection;
+					}
+					return connection.doOnSubscribe(subscription -> timing.connecting(System.nanoTime()));
+				}))
+				// The connect Mono completes late, with the exchange; a request being sent means the connection is ready.
+				.doOnRequest((request, connection) -> {
+					RequestTiming timing = request.currentContextView().getOrDefault(RequestTiming.class, null);
+					if (timing != null) {
+						timing.connected(System.nanoTime());
+					}
+				})
+				.doOnResponse((response, connection) -> {
+					RequestTiming timing = response.currentContextView().getOrDefault(RequestTiming.class, null);
+					if (timing != null) {
+						timing.firstByte(System.nanoTime());
+					}
+				});
+	}
+}
@@ -0,0 +1,19 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import java.time.Instant;
+
+/**
+ * One request kept by {@link SlowRequestLog}. Times are in milliseconds:
+ * <ul>
+ *     <li>{@code routingMs}, from the gateway receiving the request to asking for a connection to
+ *     the service, which covers route filters and load balancing;</li>
+ *     <li>{@code connectMs}, getting a connection, from the pool or newly opened;</li>
+ *     <li>{@code firstByteMs}, from having the connection to the response headers arriving;</li>
+ *     <li>{@code totalMs}, until the whole response was sent to the client.</li>
+ * </ul>
+ * The phases are null when the request did not reach them, for example when it was answered from
+ * the gateway's cache or the connection failed.
+ */
+public record SlowRequest(Instant time, String method, String path, String route, String instance, Integer status,
+						  double totalMs, Double routingMs, Double connectMs, Double firstByteMs) {
+}
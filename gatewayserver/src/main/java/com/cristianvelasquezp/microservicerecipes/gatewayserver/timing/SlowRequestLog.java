@@ -0,0 +1,170 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * The slowest requests of the last {@code window}, at most {@code capacity} of them. The window is
+ * a ring of {@value #SLOTS} slots, each holding the slowest requests of its part of the window; when
+ * the ring comes round to a slot again, what it held is dropped, so a request is listed for between
+ * four fifths of the window and all of it. Once the current slot is full, a request has to be
+ * slower than the fastest one in it to get in, and takes its place. Most requests are turned away
+ * by {@link #isSlowEnough} without taking the lock. A capacity of 0 keeps nothing.
+ */
+@Component
+public class SlowRequestLog {
+
+	private static final int SLOTS = 5;
+
+	private static final Comparator<SlowRequest> SLOWEST_FIRST = Comparator.comparingDouble(SlowRequest::totalMs).reversed();
+
+	private final int capacity;
+
+	private final long slotNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final long origin;
+
+	private final Slot[] slots = new Slot[SLOTS];
+
+	private volatile Threshold threshold;
+
+	@Autowired
+	public SlowRequestLog(@Value("${gateway.timing.slow-requests:50}") int capacity,
+						  @Value("${gateway.timing.slow-request-window:5m}") Duration window) {
+		this(capacity, window, System::nanoTime);
+	}
+
+	SlowRequestLog(int capacity, Duration window, LongSupplier nanoClock) {
+		if (capacity < 0) {
+			throw new IllegalStateException("The number of slow requests kept must not be negative, not " + capacity);
+		}
+		if (window.isNegative() || window.isZero()) {
+			throw new IllegalStateException("The slow request window must be positive, not " + window);
+		}
+		this.capacity = capacity;
+		this.slotNanos = Math.max(1, window.toNanos() / SLOTS);
+		this.nanoClock = nanoClock;
+		this.origin = nanoClock.getAsLong();
+		for (int i = 0; i < SLOTS; i++) {
+			slots[i] = new Slot(capacity);
+		}
+		this.threshold = new Threshold(-1, epoch());
+	}
+
+	public boolean isSlowEnough(double totalMs) {
+		Threshold current = threshold;
+		return capacity > 0 && (totalMs > current.totalMs() || epoch() != current.epoch());
+	}
+
+	public synchronized void offer(SlowRequest request) {
+		if (capacity == 0) {
+			return;
+		}
+		long epoch = epoch();
+		Slot slot = slot(epoch);
+		if (slot.offer(request) && slot.isFull()) {
+			threshold = new Threshold(slot.fastestMs(), epoch);
+		}
+	}
+
+	/**
+	 * @return the requests of the window, slowest first
+	 */
+	public synchronized List<SlowRequest> slowest() {
+		long epoch = epoch();
+		return Arrays.stream(slots)
+				.filter(slot -> slot.epoch > epoch - SLOTS)
+				.flatMap(slot -> Arrays.stream(slot.slowest, 0, slot.size))
+				.sorted(SLOWEST_FIRST)
+				.limit(capacity)
+				.toList();
+	}
+
+	public synchronized void clear() {
+		for (Slot slot : slots) {
+			slot.reset(-1);
+		}
+		threshold = new Threshold(-1, epoch());
+	}
+
+	/**
+	 * The number of the slot-long stretch of time we are in, counted from the start.
+	 */
+	private long epoch() {
+		return (nanoClock.getAsLong() - origin) / slotNanos;
+	}
+
+	private Slot slot(long epoch) {
+		Slot slot = slots[(int) (epoch % SLOTS)];
+		if (slot.epoch != epoch) {
+			slot.reset(epoch);
+		}
+		return slot;
+	}
+
+	/**
+	 * Total time of the fastest request in the slot of {@code epoch} once it is full; a request in a
+	 * later slot is always slow enough, until that one is full in turn.
+	 */
+	private record Threshold(double totalMs, long epoch) {
+	}
+
+	private static final class Slot {
+
+		private final SlowRequest[] slowest;
+
+		private int size;
+
+		private long epoch = -1;
+
+		Slot(int capacity) {
+			this.slowest = new SlowRequest[capacity];
+		}
+
+		boolean offer(SlowRequest request) {
+			if (size < slowest.length) {
+				slowest[size++] = request;
+				return true;
+			}
+			int fastest = fastest();
+			if (request.totalMs() <= slowest[fastest].totalMs()) {
+				return false;
+			}
+			slowest[fastest] = request;
+			return true;
+		}
+
+		boolean isFull() {
+			return size == slowest.length;
+		}
+
+		double fastestMs() {
+			return slowest[fastest()].totalMs();
+		}
+
+		private int fastest() {
+			int fastest = 0;
+			for (int i = 1; i < size; i++) {
+				if (slowest[i].totalMs() < slowest[fastest].totalMs()) {
+					fastest = i;
+				}
+			}
+			return fastest;
+		}
+
+		void reset(long epoch) {
+			Arrays.fill(slowest, null);
+			size = 0;
+			this.epoch = epoch;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowrequests} lists the slowest requests of the last
+ * {@code gateway.timing.slow-request-window} with their phase timings; {@code DELETE} starts over,
+ * e.g. after a deployment.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+	private final SlowRequestLog slowRequestLog;
+
+	public SlowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+		this.slowRequestLog = slowRequestLog;
+	}
+
+	@ReadOperation
+	public List<SlowRequest> slowRequests() {
+		return slowRequestLog.slowest();
+	}
+
+	@DeleteOperation
+	public void clear() {
+		slowRequestLog.clear();
+	}
+}
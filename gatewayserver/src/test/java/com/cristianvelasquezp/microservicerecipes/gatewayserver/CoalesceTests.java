@@ -0,0 +1,150 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false",
+		"gateway.coalescing.max-body-size=1KB"
+})
+class CoalesceTests {
+
+	private static Upstream upstream;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@LocalServerPort
+	private int port;
+
+	@BeforeAll
+	static void startUpstream() throws IOException {
+		upstream = Upstream.start((exchange, call) -> {
+			String path = exchange.getRequestURI().getPath();
+			Upstream.pause(path.equals("/items/slow") ? 600 : 300);
+			if (path.equals("/items/large")) {
+				Upstream.respond(exchange, 200, Upstream.LARGE_JSON);
+			} else {
+				Upstream.respond(exchange, 200, "{\"path\":\"" + path + "\",\"query\":\"" + exchange.getRequestURI().getQuery()
+						+ "\",\"call\":" + call + "}");
+			}
+		});
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		Upstream.route(registry, 0, "coalesced", upstream.uri(), "/upstream/items/*", "StripPrefix=1", "Coalesce=1s");
+		Upstream.route(registry, 1, "short-wait", upstream.uri(), "/short-wait/items/*", "StripPrefix=1", "Coalesce=100ms");
+	}
+
+	@BeforeEach
+	void resetCalls() {
+		upstream.resetCalls();
+	}
+
+	private CompletableFuture<HttpResponse<String>> send(String path, String... headers) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+		if (headers.length > 0) {
+			request.headers(headers);
+		}
+		return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private List<HttpResponse<String>> sendAll(int count, String path, String... headers) {
+		List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, count)
+				.mapToObj(i -> send(path, headers))
+				.toList();
+		return responses.stream().map(CompletableFuture::join).toList();
+	}
+
+	private double requests(String route, String outcome) {
+		Counter counter = meterRegistry.find("gateway.coalescing.requests").tags("route", route, "outcome", outcome).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	@Test
+	void concurrentIdenticalGetsShareOneCall() {
+		double joined = requests("coalesced", "joined");
+
+		List<HttpResponse<String>> responses = sendAll(10, "/upstream/items/1");
+
+		assertEquals(1, upstream.calls("GET /items/1"));
+		for (HttpResponse<String> response : responses) {
+			assertEquals(200, response.statusCode());
+			assertEquals(responses.getFirst().body(), response.body());
+			assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+		}
+		assertEquals(9, requests("coalesced", "joined") - joined);
+	}
+
+	@Test
+	void requestsForDifferentQueriesAreNotMerged() {
+		List<CompletableFuture<HttpResponse<String>>> first = IntStream.range(0, 3).mapToObj(i -> send("/upstream/items/2?page=1")).toList();
+		List<CompletableFuture<HttpResponse<String>>> second = IntStream.range(0, 3).mapToObj(i -> send("/upstream/items/2?page=2")).toList();
+
+		first.forEach(response -> assertTrue(response.join().body().contains("page=1")));
+		second.forEach(response -> assertTrue(response.join().body().contains("page=2")));
+		assertEquals(2, upstream.calls("GET /items/2"));
+	}
+
+	@Test
+	void requestsWithCredentialsAreNotMerged() {
+		List<HttpResponse<String>> responses = sendAll(3, "/upstream/items/3", "Authorization", "Bearer token");
+
+		responses.forEach(response -> assertEquals(200, response.statusCode()));
+		assertEquals(3, upstream.calls("GET /items/3"));
+	}
+
+	@Test
+	void bodyLargerThanTheLimitIsNotShared() {
+		List<HttpResponse<String>> responses = sendAll(4, "/upstream/items/large");
+
+		for (HttpResponse<String> response : responses) {
+			assertEquals(200, response.statusCode());
+			assertEquals(new String(Upstream.LARGE_JSON, StandardCharsets.UTF_8), response.body());
+		}
+		assertEquals(4, upstream.calls("GET /items/large"));
+	}
+
+	@Test
+	void waitingRequestGoesItselfAfterMaxWait() throws InterruptedException {
+		double timedOut = requests("short-wait", "timed_out");
+
+		CompletableFuture<HttpResponse<String>> first = send("/short-wait/items/slow");
+		Thread.sleep(100);
+		CompletableFuture<HttpResponse<String>> second = send("/short-wait/items/slow");
+
+		assertTrue(first.join().body().contains("\"call\":1"));
+		assertTrue(second.join().body().contains("\"call\":2"));
+		assertEquals(1, requests("short-wait", "timed_out") - timedOut);
+	}
+}
@@ -0,0 +1,139 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.composite.CompositeRecipeHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false",
+		"gateway.composite.user-timeout=300ms"
+})
+class CompositeRouteTests {
+
+	private static Upstream recipes;
+
+	private static Upstream users;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeAll
+	static void startServices() throws IOException {
+		recipes = Upstream.start((exchange, call) -> {
+			String id = exchange.getRequestURI().getPath().substring("/recipes/".length());
+			switch (id) {
+				case "404" -> Upstream.respond(exchange, 404, "{}");
+				case "500" -> Upstream.respond(exchange, 500, "{}");
+				// The user id picks how the users service answers, see below.
+				default -> Upstream.respond(exchange, 200, "{\"id\":" + id + ",\"name\":\"Recipe " + id + "\",\"userId\":" + id + "}");
+			}
+		});
+		users = Upstream.start((exchange, call) -> {
+			String id = exchange.getRequestURI().getPath().substring("/users/".length());
+			switch (id) {
+				case "2" -> Upstream.respond(exchange, 500, "{}");
+				case "3" -> {
+					Upstream.pause(1000);
+					Upstream.respond(exchange, 200, "{\"id\":3}");
+				}
+				case "4" -> Upstream.respond(exchange, 404, "{}");
+				default -> Upstream.respond(exchange, 200, "{\"id\":" + id + ",\"username\":\"user" + id + "\",\"query\":\""
+						+ exchange.getRequestURI().getQuery() + "\"}");
+			}
+		});
+	}
+
+	@AfterAll
+	static void stopServices() {
+		recipes.stop();
+		users.stop();
+	}
+
+	@DynamicPropertySource
+	static void services(DynamicPropertyRegistry registry) {
+		registry.add("spring.cloud.discovery.client.simple.instances.recipes[0].uri", recipes::uri);
+		registry.add("spring.cloud.discovery.client.simple.instances.users[0].uri", users::uri);
+	}
+
+	@Test
+	void recipeIsReturnedWithItsUser() {
+		webTestClient.get().uri("/composite/recipes/1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(CompositeRecipeHandler.PARTIAL_HEADER)
+				.expectBody()
+				.jsonPath("$.name").isEqualTo("Recipe 1")
+				.jsonPath("$.user.username").isEqualTo("user1")
+				.jsonPath("$.user.query").isEqualTo("fields=username,firstName,lastName");
+	}
+
+	@Test
+	void recipeIsReturnedWithoutItsUserWhenUsersFails() {
+		webTestClient.get().uri("/composite/recipes/2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(CompositeRecipeHandler.PARTIAL_HEADER, "user")
+				.expectBody()
+				.jsonPath("$.name").isEqualTo("Recipe 2")
+				.jsonPath("$.user").isEmpty();
+	}
+
+	@Test
+	void recipeIsReturnedWithoutItsUserWhenUsersIsTooSlow() {
+		webTestClient.get().uri("/composite/recipes/3")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(CompositeRecipeHandler.PARTIAL_HEADER, "user")
+				.expectBody()
+				.jsonPath("$.name").isEqualTo("Recipe 3");
+
+		assertTrue(meterRegistry.get("gateway.composite.leg").tag("leg", "user").tag("outcome", "timeout").timer().count() >= 1);
+	}
+
+	@Test
+	void deletedUserIsNullWithoutMarkingTheResponsePartial() {
+		webTestClient.get().uri("/composite/recipes/4")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().doesNotExist(CompositeRecipeHandler.PARTIAL_HEADER)
+				.expectBody()
+				.jsonPath("$.user").isEmpty();
+	}
+
+	@Test
+	void missingRecipeIsNotFound() {
+		webTestClient.get().uri("/composite/recipes/404")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void failingRecipesServiceIsBadGateway() {
+		webTestClient.get().uri("/composite/recipes/500")
+				.exchange()
+				.expectStatus().isEqualTo(502);
+	}
+
+	@Test
+	void eachLegIsTimed() {
+		webTestClient.get().uri("/composite/recipes/5").exchange().expectStatus().isOk();
+
+		assertTrue(meterRegistry.get("gateway.composite.leg").tag("leg", "recipe").tag("outcome", "success").timer().count() >= 1);
+		assertTrue(meterRegistry.get("gateway.composite.leg").tag("leg", "user").tag("outcome", "success").timer().count() >= 1);
+	}
+}
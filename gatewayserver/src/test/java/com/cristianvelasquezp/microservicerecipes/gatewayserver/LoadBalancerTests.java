@@ -0,0 +1,64 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false"
+})
+class LoadBalancerTests {
+
+	private static Upstream fast;
+
+	private static Upstream slow;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@BeforeAll
+	static void startInstances() throws IOException {
+		fast = Upstream.start((exchange, call) -> Upstream.respond(exchange, 200, "{}"));
+		slow = Upstream.start((exchange, call) -> {
+			Upstream.pause(200);
+			Upstream.respond(exchange, 200, "{}");
+		});
+	}
+
+	@AfterAll
+	static void stopInstances() {
+		fast.stop();
+		slow.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		registry.add("spring.cloud.discovery.client.simple.instances.balanced[0].uri", fast::uri);
+		registry.add("spring.cloud.discovery.client.simple.instances.balanced[1].uri", slow::uri);
+		registry.add("spring.cloud.gateway.routes[0].id", () -> "balanced");
+		registry.add("spring.cloud.gateway.routes[0].uri", () -> "lb://balanced");
+		registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/balanced/**");
+	}
+
+	@Test
+	void slowInstanceGetsFewRequests() {
+		for (int i = 0; i < 40; i++) {
+			webTestClient.get().uri("/balanced/" + i)
+					.exchange()
+					.expectStatus().isOk();
+		}
+
+		assertEquals(40, fast.totalCalls() + slow.totalCalls());
+		assertTrue(slow.totalCalls() <= 3, "slow instance got " + slow.totalCalls() + " requests");
+	}
+}
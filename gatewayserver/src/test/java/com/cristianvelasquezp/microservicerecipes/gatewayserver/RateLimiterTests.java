@@ -0,0 +1,97 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false",
+		"gateway.rate-limiter.routes.limited.replenish-rate=0.1",
+		"gateway.rate-limiter.routes.limited.burst-capacity=2",
+		"gateway.rate-limiter.routes.limited.key=api-key",
+		"gateway.rate-limiter.routes.cached.replenish-rate=0.1",
+		"gateway.rate-limiter.routes.cached.burst-capacity=2",
+		"gateway.rate-limiter.routes.cached.key=api-key"
+})
+class RateLimiterTests {
+
+	private static Upstream upstream;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@BeforeAll
+	static void startUpstream() throws IOException {
+		upstream = Upstream.start((exchange, call) -> Upstream.respond(exchange, 200, "{}"));
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		Upstream.route(registry, 0, "limited", upstream.uri(), "/limited/**", "StripPrefix=1");
+		Upstream.route(registry, 1, "open", upstream.uri(), "/open/**", "StripPrefix=1");
+		Upstream.route(registry, 2, "cached", upstream.uri(), "/cached/**", "StripPrefix=1", "ResponseCache=5m", "Coalesce=1s");
+	}
+
+	private HttpResponse<String> get(String path, String apiKey) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("X-API-Key", apiKey)
+				.build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	void requestsOverTheRouteLimitGet429WithRetryAfter() throws IOException, InterruptedException {
+		assertEquals(200, get("/limited/items", "first").statusCode());
+		assertEquals(200, get("/limited/items", "first").statusCode());
+
+		HttpResponse<String> limited = get("/limited/items", "first");
+
+		assertEquals(429, limited.statusCode());
+		assertEquals("10", limited.headers().firstValue("Retry-After").orElse(null));
+	}
+
+	@Test
+	void eachApiKeyHasItsOwnBucket() throws IOException, InterruptedException {
+		get("/limited/items", "second");
+		get("/limited/items", "second");
+		assertEquals(429, get("/limited/items", "second").statusCode());
+
+		assertEquals(200, get("/limited/items", "third").statusCode());
+	}
+
+	@Test
+	void otherRoutesKeepTheDefaultLimit() throws IOException, InterruptedException {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(200, get("/open/items", "fourth").statusCode());
+		}
+	}
+
+	@Test
+	void responsesFromTheCacheCountAgainstTheLimit() throws IOException, InterruptedException {
+		assertEquals(200, get("/cached/recipe", "fifth").statusCode());
+		assertEquals(200, get("/cached/recipe", "fifth").statusCode());
+
+		assertEquals(429, get("/cached/recipe", "fifth").statusCode());
+		assertEquals(1, upstream.calls("GET /recipe"));
+	}
+}
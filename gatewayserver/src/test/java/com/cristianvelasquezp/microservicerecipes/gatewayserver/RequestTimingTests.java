@@ -0,0 +1,94 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false",
+		"gateway.timing.slow-requests=2"
+})
+class RequestTimingTests {
+
+	private static Upstream upstream;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeAll
+	static void startUpstream() throws IOException {
+		upstream = Upstream.start((exchange, call) -> {
+			if (exchange.getRequestURI().getPath().equals("/slow")) {
+				Upstream.pause(300);
+			}
+			Upstream.respond(exchange, 200, "{}");
+		});
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		Upstream.route(registry, 0, "upstream", upstream.uri(), "/upstream/**", "StripPrefix=1");
+	}
+
+	@Test
+	void latencyIsRecordedPerRouteAndInstanceWithPercentiles() {
+		for (int i = 0; i < 5; i++) {
+			webTestClient.get().uri("/upstream/fast").exchange().expectStatus().isOk();
+		}
+
+		Timer timer = meterRegistry.get("gateway.route.latency")
+				.tag("route", "upstream")
+				.tag("instance", "localhost:" + upstream.port())
+				.timer();
+		assertTrue(timer.count() >= 5);
+		assertTrue(Arrays.stream(timer.takeSnapshot().percentileValues()).anyMatch(value -> value.percentile() == 0.99));
+	}
+
+	@Test
+	void slowestRequestsAreListedWithTheirPhases() {
+		webTestClient.get().uri("/upstream/slow").exchange().expectStatus().isOk();
+		webTestClient.get().uri("/upstream/fast").exchange().expectStatus().isOk();
+		webTestClient.get().uri("/upstream/fast").exchange().expectStatus().isOk();
+
+		webTestClient.get().uri("/actuator/slowrequests")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(2)
+				.jsonPath("$[0].path").isEqualTo("/upstream/slow")
+				.jsonPath("$[0].route").isEqualTo("upstream")
+				.jsonPath("$[0].status").isEqualTo(200)
+				.jsonPath("$[0].totalMs").value(greaterThanOrEqualTo(300.0))
+				.jsonPath("$[0].firstByteMs").value(greaterThanOrEqualTo(300.0))
+				.jsonPath("$[0].connectMs").isNumber()
+				.jsonPath("$[0].routingMs").isNumber();
+
+		webTestClient.delete().uri("/actuator/slowrequests").exchange().expectStatus().is2xxSuccessful();
+		webTestClient.get().uri("/actuator/slowrequests")
+				.exchange()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(0);
+	}
+}
@@ -0,0 +1,203 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false",
+		"gateway.response-cache.max-entry-size=1KB"
+})
+class ResponseCacheTests {
+
+	private static Upstream upstream;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@BeforeAll
+	static void startUpstream() throws IOException {
+		upstream = Upstream.start((exchange, call) -> {
+			String path = exchange.getRequestURI().getPath();
+			if (exchange.getRequestMethod().equals("PUT")) {
+				// Updates answer with the stored resource, as the services do.
+				Upstream.respond(exchange, 200, exchange.getRequestBody().readAllBytes());
+			} else if (path.equals("/items/large")) {
+				Upstream.respond(exchange, 200, Upstream.LARGE_JSON);
+			} else if (path.equals("/items/missing")) {
+				Upstream.respond(exchange, 404, "{}");
+			} else {
+				Upstream.respond(exchange, 200, "{\"path\":\"" + path + "\",\"call\":" + call + "}");
+			}
+		});
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		Upstream.route(registry, 0, "cached", upstream.uri(), "/upstream/items/*", "StripPrefix=1", "ResponseCache=1m");
+		registry.add("spring.cloud.gateway.routes[0].order", () -> "-1");
+		registry.add("spring.cloud.gateway.routes[0].predicates[1]", () -> "Method=GET");
+		Upstream.route(registry, 1, "upstream", upstream.uri(), "/upstream/**", "StripPrefix=1");
+	}
+
+	@BeforeEach
+	void resetCalls() {
+		upstream.resetCalls();
+	}
+
+	private HttpResponse<String> send(String method, String path, String... headers) throws IOException, InterruptedException {
+		return send(method, path, HttpRequest.BodyPublishers.noBody(), headers);
+	}
+
+	private HttpResponse<String> send(String method, String path, HttpRequest.BodyPublisher body, String... headers)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.method(method, body);
+		if (headers.length > 0) {
+			request.headers(headers);
+		}
+		return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	void repeatedGetIsServedFromTheCacheWithTheSameEtag() throws IOException, InterruptedException {
+		HttpResponse<String> first = send("GET", "/upstream/items/1");
+		HttpResponse<String> second = send("GET", "/upstream/items/1");
+
+		assertEquals(200, second.statusCode());
+		assertEquals(first.body(), second.body());
+		assertEquals(1, upstream.calls("GET /items/1"));
+		String etag = first.headers().firstValue("ETag").orElseThrow();
+		assertEquals(etag, second.headers().firstValue("ETag").orElse(null));
+		assertTrue(first.headers().firstValue("Last-Modified").isPresent());
+		assertTrue(second.headers().firstValue("Age").isPresent());
+	}
+
+	@Test
+	void matchingIfNoneMatchGets304WithoutCallingTheService() throws IOException, InterruptedException {
+		String etag = send("GET", "/upstream/items/2").headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<String> revalidated = send("GET", "/upstream/items/2", "If-None-Match", etag);
+
+		assertEquals(304, revalidated.statusCode());
+		assertEquals("", revalidated.body());
+		assertEquals(etag, revalidated.headers().firstValue("ETag").orElse(null));
+		assertEquals(1, upstream.calls("GET /items/2"));
+	}
+
+	@Test
+	void matchingIfModifiedSinceGets304() throws IOException, InterruptedException {
+		String lastModified = send("GET", "/upstream/items/3").headers().firstValue("Last-Modified").orElseThrow();
+
+		HttpResponse<String> revalidated = send("GET", "/upstream/items/3", "If-Modified-Since", lastModified);
+
+		assertEquals(304, revalidated.statusCode());
+		assertEquals(1, upstream.calls("GET /items/3"));
+	}
+
+	@Test
+	void staleIfNoneMatchGetsTheCachedBody() throws IOException, InterruptedException {
+		HttpResponse<String> first = send("GET", "/upstream/items/4");
+
+		HttpResponse<String> second = send("GET", "/upstream/items/4", "If-None-Match", "\"outdated\"");
+
+		assertEquals(200, second.statusCode());
+		assertEquals(first.body(), second.body());
+		assertEquals(1, upstream.calls("GET /items/4"));
+	}
+
+	@Test
+	void deleteThroughTheGatewayEvictsTheCachedResponse() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/5");
+		send("DELETE", "/upstream/items/5");
+
+		HttpResponse<String> afterDelete = send("GET", "/upstream/items/5");
+
+		assertEquals(2, upstream.calls("GET /items/5"));
+		assertTrue(afterDelete.body().contains("\"call\":2"));
+	}
+
+	@Test
+	void updateOfTheCollectionEvictsOnlyTheUpdatedResource() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/6");
+		send("GET", "/upstream/items/9");
+		send("PUT", "/upstream/items", HttpRequest.BodyPublishers.ofString("{\"id\":6,\"name\":\"Updated\"}"),
+				"Content-Type", "application/json");
+
+		send("GET", "/upstream/items/6");
+		send("GET", "/upstream/items/9");
+
+		assertEquals(2, upstream.calls("GET /items/6"));
+		assertEquals(1, upstream.calls("GET /items/9"));
+	}
+
+	@Test
+	void creationInTheCollectionEvictsNothing() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/10");
+		send("POST", "/upstream/items");
+
+		send("GET", "/upstream/items/10");
+
+		assertEquals(1, upstream.calls("POST /items"));
+		assertEquals(1, upstream.calls("GET /items/10"));
+	}
+
+	@Test
+	void representationsAreCachedPerAcceptHeader() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/7", "Accept", "application/json");
+		send("GET", "/upstream/items/7", "Accept", "application/cbor");
+		send("GET", "/upstream/items/7", "Accept", "application/json");
+
+		assertEquals(2, upstream.calls("GET /items/7"));
+	}
+
+	@Test
+	void noCacheRequestGoesToTheService() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/8");
+
+		send("GET", "/upstream/items/8", "Cache-Control", "no-cache");
+
+		assertEquals(2, upstream.calls("GET /items/8"));
+	}
+
+	@Test
+	void bodiesLargerThanTheEntryLimitPassThroughWithoutBeingCached() throws IOException, InterruptedException {
+		HttpResponse<String> first = send("GET", "/upstream/items/large");
+		send("GET", "/upstream/items/large");
+
+		assertEquals(new String(Upstream.LARGE_JSON, StandardCharsets.UTF_8), first.body());
+		assertEquals(2, upstream.calls("GET /items/large"));
+	}
+
+	@Test
+	void errorResponsesAreNotCached() throws IOException, InterruptedException {
+		send("GET", "/upstream/items/missing");
+
+		HttpResponse<String> second = send("GET", "/upstream/items/missing");
+
+		assertEquals(404, second.statusCode());
+		assertEquals(2, upstream.calls("GET /items/missing"));
+	}
+}
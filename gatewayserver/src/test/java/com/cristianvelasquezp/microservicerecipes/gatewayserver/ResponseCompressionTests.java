@@ -0,0 +1,127 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"spring.cloud.gateway.discovery.locator.enabled=false"
+})
+class ResponseCompressionTests {
+
+	private static final byte[] LARGE_JSON = ("[" + "{\"name\":\"Recipe\",\"description\":\"A recipe\"},".repeat(2000) + "{}]").getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] SMALL_JSON = "{\"name\":\"Recipe\"}".getBytes(StandardCharsets.UTF_8);
+
+	private static Upstream upstream;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@BeforeAll
+	static void startUpstream() throws IOException {
+		upstream = Upstream.start((exchange, call) -> {
+			switch (exchange.getRequestURI().getPath()) {
+				case "/small" -> Upstream.respond(exchange, 200, SMALL_JSON);
+				case "/image" -> Upstream.respond(exchange, 200, "image/png", LARGE_JSON, LARGE_JSON.length);
+				case "/export" -> Upstream.respond(exchange, 200, "application/x-ndjson", LARGE_JSON, 0);
+				default -> Upstream.respond(exchange, 200, LARGE_JSON);
+			}
+		});
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.stop();
+	}
+
+	@DynamicPropertySource
+	static void routes(DynamicPropertyRegistry registry) {
+		Upstream.route(registry, 0, "upstream", upstream.uri(), "/upstream/**", "StripPrefix=1");
+	}
+
+	/**
+	 * Sent with the JDK client, which leaves the body as it arrived; WebTestClient would decompress it.
+	 */
+	private HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Accept-Encoding", acceptEncoding)
+				.build();
+		HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(200, response.statusCode());
+		return response;
+	}
+
+	private static byte[] gunzip(byte[] body) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return in.readAllBytes();
+		}
+	}
+
+	@Test
+	void largeJsonIsGzippedWhenTheClientAcceptsGzip() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/large", "gzip");
+
+		assertEquals("gzip", result.headers().firstValue("Content-Encoding").orElse(null));
+		assertTrue(result.body().length < LARGE_JSON.length / 10);
+		assertArrayEquals(LARGE_JSON, gunzip(result.body()));
+	}
+
+	@Test
+	void largeJsonIsBrotliCompressedWhenTheClientPrefersBrotli() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/large", "br, gzip");
+
+		assertEquals("br", result.headers().firstValue("Content-Encoding").orElse(null));
+		assertTrue(result.body().length < LARGE_JSON.length / 10);
+	}
+
+	@Test
+	void streamedNdjsonWithoutLengthIsCompressed() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/export", "gzip");
+
+		assertEquals("gzip", result.headers().firstValue("Content-Encoding").orElse(null));
+		assertArrayEquals(LARGE_JSON, gunzip(result.body()));
+	}
+
+	@Test
+	void responsesBelowTheThresholdAreNotCompressed() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/small", "gzip");
+
+		assertNull(result.headers().firstValue("Content-Encoding").orElse(null));
+		assertArrayEquals(SMALL_JSON, result.body());
+	}
+
+	@Test
+	void contentTypesOutsideTheAllowlistAreNotCompressed() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/image", "gzip");
+
+		assertNull(result.headers().firstValue("Content-Encoding").orElse(null));
+		assertArrayEquals(LARGE_JSON, result.body());
+	}
+
+	@Test
+	void responsesAreNotCompressedWhenTheClientDoesNotAskForIt() throws IOException, InterruptedException {
+		HttpResponse<byte[]> result = get("/upstream/large", "identity");
+
+		assertNull(result.headers().firstValue("Content-Encoding").orElse(null));
+		assertArrayEquals(LARGE_JSON, result.body());
+	}
+}
@@ -0,0 +1,128 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A service for the gateway to send requests to in tests: an HTTP server on a free local port that
+ * answers with the given handler, on virtual threads so a slow answer does not hold up the others,
+ * and counts the requests it gets by method and path.
+ */
+final class Upstream {
+
+	/**
+	 * A JSON array of a little over 1KB.
+	 */
+	static final byte[] LARGE_JSON = ("[" + "{\"name\":\"Recipe\"},".repeat(100) + "{}]").getBytes(StandardCharsets.UTF_8);
+
+	private final HttpServer server;
+
+	private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+	private final AtomicInteger totalCalls = new AtomicInteger();
+
+	@FunctionalInterface
+	interface Handler {
+
+		/**
+		 * @param call the number of this request among those with the same method and path, from 1
+		 */
+		void handle(HttpExchange exchange, int call) throws IOException;
+	}
+
+	private Upstream(Handler handler) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/", exchange -> {
+			totalCalls.incrementAndGet();
+			String request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+			handler.handle(exchange, calls.computeIfAbsent(request, key -> new AtomicInteger()).incrementAndGet());
+		});
+		server.start();
+	}
+
+	static Upstream start(Handler handler) throws IOException {
+		return new Upstream(handler);
+	}
+
+	void stop() {
+		server.stop(0);
+	}
+
+	String uri() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	int port() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @param request method and path, e.g. {@code GET /items/1}
+	 */
+	int calls(String request) {
+		AtomicInteger count = calls.get(request);
+		return count == null ? 0 : count.get();
+	}
+
+	int totalCalls() {
+		return totalCalls.get();
+	}
+
+	void resetCalls() {
+		calls.clear();
+		totalCalls.set(0);
+	}
+
+	/**
+	 * Adds a route to {@code uri} for the requests under {@code path}, e.g. {@code /upstream/**},
+	 * with the given filters.
+	 */
+	static void route(DynamicPropertyRegistry registry, int index, String id, String uri, String path, String... filters) {
+		String route = "spring.cloud.gateway.routes[" + index + "]";
+		registry.add(route + ".id", () -> id);
+		registry.add(route + ".uri", () -> uri);
+		registry.add(route + ".predicates[0]", () -> "Path=" + path);
+		for (int i = 0; i < filters.length; i++) {
+			String filter = filters[i];
+			registry.add(route + ".filters[" + i + "]", () -> filter);
+		}
+	}
+
+	static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		respond(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static void respond(HttpExchange exchange, int status, byte[] json) throws IOException {
+		respond(exchange, status, "application/json", json, json.length);
+	}
+
+	/**
+	 * @param length the Content-Length to send, or 0 to send the body in chunks
+	 */
+	static void respond(HttpExchange exchange, int status, String contentType, byte[] body, long length) throws IOException {
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	static void pause(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.benchmarks;
+
+import com.cristianvelasquezp.microservicerecipes.loadbalancer.PowerOfTwoChoicesLoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency of requests spread over five instances by round robin, at random and by
+ * {@link PowerOfTwoChoicesLoadBalancer}, when one instance is degraded: three times slower, so
+ * the share round robin sends it keeps it three quarters busy and its requests queue. A
+ * discrete-event simulation on a virtual clock, so it runs in seconds and gives the same arrivals
+ * and service times to every balancer. Each instance serves eight requests at a time and queues
+ * the rest. Not part of the test run; start it with {@link #main}.
+ */
+public class LoadBalancerSimulation {
+
+	private static final int INSTANCES = 5;
+
+	private static final int WORKERS = 8;
+
+	private static final long HEALTHY_MEAN_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long DEGRADED_MEAN_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+
+	private static final double REQUESTS_PER_SECOND = 1_000;
+
+	private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+	private static final long SEED = 42;
+
+	private final PriorityQueue<Event> events = new PriorityQueue<>(Comparator.comparingLong(Event::time));
+
+	private final Map<ServiceInstance, Server> servers = new HashMap<>();
+
+	private long now;
+
+	private record Job(long serviceNanos, Runnable onDone) {
+	}
+
+	private record Event(long time, Runnable action) {
+	}
+
+	/**
+	 * An instance with a fixed number of workers and an unbounded queue.
+	 */
+	private final class Server {
+
+		private final Queue<Job> queue = new ArrayDeque<>();
+
+		private int busy;
+
+		void submit(Job job) {
+			if (busy < WORKERS) {
+				serve(job);
+			} else {
+				queue.add(job);
+			}
+		}
+
+		private void serve(Job job) {
+			busy++;
+			events.add(new Event(now + job.serviceNanos(), () -> {
+				busy--;
+				job.onDone().run();
+				Job next = queue.poll();
+				if (next != null) {
+					serve(next);
+				}
+			}));
+		}
+	}
+
+	public static void main(String[] args) {
+		System.out.printf("%-16s %8s %8s %8s %8s  %s%n", "balancer", "p50", "p99", "p99.9", "max", "share of the degraded instance");
+		run("round robin", (provider, clock) -> new RoundRobinLoadBalancer(provider, "recipes"));
+		run("random", (provider, clock) -> new RandomLoadBalancer(provider, "recipes"));
+		run("power of two", (provider, clock) -> new PowerOfTwoChoicesLoadBalancer(provider, "recipes",
+				Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofMinutes(1), clock));
+	}
+
+	private interface BalancerFactory {
+
+		ReactorServiceInstanceLoadBalancer create(ObjectProvider<ServiceInstanceListSupplier> provider, LongSupplier clock);
+	}
+
+	private static void run(String name, BalancerFactory factory) {
+		new LoadBalancerSimulation().simulate(name, factory);
+	}
+
+	private void simulate(String name, BalancerFactory factory) {
+		ServiceInstance[] instances = new ServiceInstance[INSTANCES];
+		for (int i = 0; i < INSTANCES; i++) {
+			instances[i] = new DefaultServiceInstance("recipes-" + i, "recipes", "recipes-" + i, 8080, false);
+			servers.put(instances[i], new Server());
+		}
+		ServiceInstance degraded = instances[INSTANCES - 1];
+		ReactorServiceInstanceLoadBalancer balancer = factory.create(ServiceInstanceListSuppliers.toProvider("recipes", instances), () -> now);
+		PowerOfTwoChoicesLoadBalancer lifecycle = balancer instanceof PowerOfTwoChoicesLoadBalancer p2c ? p2c : null;
+
+		Random random = new Random(SEED);
+		long[] latencies = new long[(int) (REQUESTS_PER_SECOND * DURATION_NANOS / TimeUnit.SECONDS.toNanos(1) * 2)];
+		int[] completed = {0};
+		int[] toDegraded = {0};
+		double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND;
+		for (long arrival = 0; arrival < DURATION_NANOS; arrival += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) {
+			long at = arrival;
+			double serviceFactor = -Math.log(1 - random.nextDouble());
+			events.add(new Event(at, () -> {
+				Request<Object> request = new DefaultRequest<>();
+				ServiceInstance instance = balancer.choose(request).block().getServer();
+				if (instance == degraded) {
+					toDegraded[0]++;
+				}
+				long mean = instance == degraded ? DEGRADED_MEAN_NANOS : HEALTHY_MEAN_NANOS;
+				if (lifecycle != null) {
+					lifecycle.onStartRequest(request, new DefaultResponse(instance));
+				}
+				servers.get(instance).submit(new Job((long) (serviceFactor * mean), () -> {
+					latencies[completed[0]++] = now - at;
+					if (lifecycle != null) {
+						lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, new DefaultResponse(instance)));
+					}
+				}));
+			}));
+		}
+		while (!events.isEmpty()) {
+			Event event = events.poll();
+			now = event.time();
+			event.action().run();
+		}
+
+		long[] sorted = Arrays.copyOf(latencies, completed[0]);
+		Arrays.sort(sorted);
+		System.out.printf("%-16s %6.1fms %6.1fms %6.1fms %6.1fms  %.1f%%%n", name,
+				millis(sorted, 0.5), millis(sorted, 0.99), millis(sorted, 0.999), millis(sorted, 1.0),
+				100.0 * toDegraded[0] / sorted.length);
+	}
+
+	private static double millis(long[] sorted, double quantile) {
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+}
@@ -0,0 +1,63 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.benchmarks;
+
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit.LocalRateLimiter;
+import com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit.RateLimiterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LocalRateLimiter} with eight threads: over a thousand clients, and with
+ * every thread on one shared bucket, the worst case for compare-and-set contention. The limit is
+ * high enough that requests are allowed, the common path. {@link #main} runs with the GC profiler,
+ * whose {@code gc.alloc.rate.norm} is the bytes allocated per request. Not part of the test run;
+ * start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+	private static final String[] CLIENTS = new String[1024];
+
+	static {
+		for (int i = 0; i < CLIENTS.length; i++) {
+			CLIENTS[i] = "10.0." + (i / 256) + "." + (i % 256);
+		}
+	}
+
+	private LocalRateLimiter rateLimiter;
+
+	@Setup
+	public void setUp() {
+		RateLimiterProperties properties = new RateLimiterProperties();
+		properties.setReplenishRate(1_000_000_000);
+		properties.setBurstCapacity(1_000_000);
+		rateLimiter = new LocalRateLimiter(properties, null, new SimpleMeterRegistry());
+	}
+
+	@Benchmark
+	public Mono<RateLimiter.Response> manyClients() {
+		return rateLimiter.isAllowed("recipes", CLIENTS[ThreadLocalRandom.current().nextInt(CLIENTS.length)]);
+	}
+
+	@Benchmark
+	public Mono<RateLimiter.Response> oneSharedBucket() {
+		return rateLimiter.isAllowed("recipes", "route");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+	}
+}
@@ -0,0 +1,111 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.benchmarks;
+
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of compressing one MB of JSON the way the gateway does: streamed through the Netty
+ * encoder in 8 KB chunks, as the body arrives from the service. One operation is one MB, so the
+ * score reads as milliseconds per MB. Levels 6 (gzip) and 4 (brotli) are the ones the gateway
+ * uses; the others show what a different setting would cost. {@link #main} also prints the
+ * compressed size for each setting. Not part of the test run; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCompressionBenchmark {
+
+	private static final int MB = 1024 * 1024;
+
+	private static final int CHUNK = 8 * 1024;
+
+	@Param({"gzip", "br"})
+	String encoding;
+
+	@Param({"1", "4", "6"})
+	int level;
+
+	private byte[] body;
+
+	@Setup
+	public void setUp() throws Throwable {
+		Brotli.ensureAvailability();
+		body = recipesJson();
+	}
+
+	/**
+	 * About one MB of recipe JSON; names, ids and dates vary so the text is not unrealistically
+	 * repetitive.
+	 */
+	private static byte[] recipesJson() {
+		Random random = new Random(42);
+		StringBuilder json = new StringBuilder("[");
+		for (long id = 1; json.length() < MB - 512; id++) {
+			json.append("{\"id\":").append(id)
+					.append(",\"name\":\"Recipe ").append(Long.toString(random.nextLong(), 36))
+					.append("\",\"description\":\"A dish with ").append(random.nextInt(20)).append(" ingredients\"")
+					.append(",\"category\":{\"id\":").append(random.nextInt(30)).append(",\"name\":\"Category ").append(random.nextInt(30)).append("\"}")
+					.append(",\"date\":\"2024-").append(10 + random.nextInt(3)).append('-').append(10 + random.nextInt(18)).append("T12:00:00.000+00:00\"")
+					.append(",\"directions\":\"Step one. Step two. Stir for ").append(random.nextInt(60)).append(" minutes.\"")
+					.append(",\"userId\":").append(random.nextInt(100_000))
+					.append(",\"version\":").append(random.nextInt(5)).append("},");
+		}
+		json.setCharAt(json.length() - 1, ']');
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static ChannelHandler encoder(String encoding, int level) {
+		return switch (encoding) {
+			case "gzip" -> ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, level);
+			case "br" -> new BrotliEncoder(new Encoder.Parameters().setQuality(level).setMode(Encoder.Mode.TEXT));
+			default -> throw new IllegalArgumentException("Unknown encoding: " + encoding);
+		};
+	}
+
+	private static long compress(byte[] body, String encoding, int level) {
+		EmbeddedChannel channel = new EmbeddedChannel(encoder(encoding, level));
+		for (int offset = 0; offset < body.length; offset += CHUNK) {
+			channel.writeOutbound(Unpooled.wrappedBuffer(body, offset, Math.min(CHUNK, body.length - offset)));
+		}
+		channel.finish();
+		long compressed = 0;
+		for (ByteBuf buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+			compressed += buffer.readableBytes();
+			buffer.release();
+		}
+		return compressed;
+	}
+
+	@Benchmark
+	public long compressOneMegabyte() {
+		return compress(body, encoding, level);
+	}
+
+	public static void main(String[] args) throws Throwable {
+		Brotli.ensureAvailability();
+		byte[] body = recipesJson();
+		for (String encoding : new String[]{"gzip", "br"}) {
+			for (int level : new int[]{1, 4, 6}) {
+				System.out.printf("%s level %d: %d bytes -> %d bytes%n", encoding, level, body.length, compress(body, encoding, level));
+			}
+		}
+		new Runner(new OptionsBuilder().include(ResponseCompressionBenchmark.class.getSimpleName()).build()).run();
+	}
+}
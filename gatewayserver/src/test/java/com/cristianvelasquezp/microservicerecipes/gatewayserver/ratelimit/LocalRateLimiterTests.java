@@ -0,0 +1,162 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRateLimiterTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RateLimiterProperties properties;
+
+	private LocalRateLimiter rateLimiter;
+
+	@BeforeEach
+	void setUp() {
+		properties = new RateLimiterProperties();
+		properties.setReplenishRate(10);
+		properties.setBurstCapacity(5);
+		rateLimiter = new LocalRateLimiter(properties, null, meterRegistry, now::get);
+	}
+
+	private int allowedOf(int requests, String route, String key) {
+		int allowed = 0;
+		for (int i = 0; i < requests; i++) {
+			if (rateLimiter.tryAcquire(route, key) == 0) {
+				allowed++;
+			}
+		}
+		return allowed;
+	}
+
+	private double requests(String route, String outcome) {
+		return meterRegistry.get(LocalRateLimiter.REQUESTS_METRIC).tag("route", route).tag("outcome", outcome).counter().count();
+	}
+
+	@Test
+	void burstIsAllowedAndTheRestDenied() {
+		assertEquals(5, allowedOf(8, "recipes", "10.0.0.1"));
+		assertEquals(5, requests("recipes", "allowed"));
+		assertEquals(3, requests("recipes", "denied"));
+	}
+
+	@Test
+	void bucketRefillsAtTheReplenishRate() {
+		allowedOf(5, "recipes", "10.0.0.1");
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+
+		assertEquals(2, allowedOf(5, "recipes", "10.0.0.1"));
+	}
+
+	@Test
+	void deniedRequestIsToldWhenToRetry() {
+		properties.setReplenishRate(0.5);
+		properties.setBurstCapacity(1);
+		rateLimiter.isAllowed("recipes", "10.0.0.1").block();
+
+		RateLimiter.Response response = rateLimiter.isAllowed("recipes", "10.0.0.1").block();
+
+		assertFalse(response.isAllowed());
+		assertEquals("2", response.getHeaders().get("Retry-After"));
+	}
+
+	@Test
+	void keysAndRoutesHaveSeparateBuckets() {
+		allowedOf(5, "recipes", "10.0.0.1");
+
+		assertEquals(5, allowedOf(5, "recipes", "10.0.0.2"));
+		assertEquals(5, allowedOf(5, "users", "10.0.0.1"));
+	}
+
+	@Test
+	void routeSettingsOverrideOnlyWhatTheyName() {
+		RateLimiterProperties.Limit limit = new RateLimiterProperties.Limit();
+		limit.setBurstCapacity(2);
+		limit.setKey(RateLimiterProperties.KeyType.API_KEY);
+		properties.getRoutes().put("users", limit);
+
+		assertEquals(2, allowedOf(5, "users", "10.0.0.1"));
+		assertEquals(10, rateLimiter.replenishRate("users"));
+		assertEquals(RateLimiterProperties.KeyType.API_KEY, rateLimiter.keyType("users"));
+		assertEquals(RateLimiterProperties.KeyType.CLIENT, rateLimiter.keyType("recipes"));
+	}
+
+	@Test
+	void filterArgumentsTakePrecedenceOverProperties() {
+		RateLimiterProperties.Limit fromProperties = new RateLimiterProperties.Limit();
+		fromProperties.setBurstCapacity(2);
+		properties.getRoutes().put("users", fromProperties);
+		RateLimiterProperties.Limit fromArgs = new RateLimiterProperties.Limit();
+		fromArgs.setBurstCapacity(3);
+		rateLimiter.getConfig().put("users", fromArgs);
+
+		assertEquals(3, allowedOf(5, "users", "10.0.0.1"));
+	}
+
+	@Test
+	void limitsThatAreNotPositiveAreRejected() {
+		RateLimiterProperties.Limit limit = new RateLimiterProperties.Limit();
+		limit.setReplenishRate(0.0);
+		properties.getRoutes().put("users", limit);
+		properties.setBurstCapacity(0);
+
+		Set<String> violations = Validation.buildDefaultValidatorFactory().getValidator().validate(properties).stream()
+				.map(violation -> violation.getPropertyPath().toString())
+				.collect(Collectors.toSet());
+
+		assertEquals(Set.of("burstCapacity", "routes[users].replenishRate"), violations);
+		assertThrows(IllegalStateException.class, () -> rateLimiter.tryAcquire("users", "10.0.0.1"));
+		assertThrows(IllegalStateException.class, () -> rateLimiter.tryAcquire("recipes", "10.0.0.1"));
+	}
+
+	@Test
+	void concurrentRequestsNeverExceedTheBurst() throws InterruptedException {
+		properties.setBurstCapacity(1000);
+		AtomicInteger allowed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = Thread.ofPlatform().start(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				allowed.addAndGet(allowedOf(500, "recipes", "10.0.0.1"));
+			});
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(1000, allowed.get());
+	}
+
+	@Test
+	void idleBucketsAreDropped() {
+		allowedOf(1, "recipes", "10.0.0.1");
+		allowedOf(5, "recipes", "10.0.0.2");
+		assertEquals(2, meterRegistry.get(LocalRateLimiter.KEYS_METRIC).tag("route", "recipes").gauge().value());
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+		allowedOf(1, "recipes", "10.0.0.3");
+
+		assertEquals(1, meterRegistry.get(LocalRateLimiter.KEYS_METRIC).tag("route", "recipes").gauge().value());
+	}
+}
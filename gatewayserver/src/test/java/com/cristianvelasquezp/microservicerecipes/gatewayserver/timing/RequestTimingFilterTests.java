@@ -0,0 +1,56 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingFilterTests {
+
+	private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final RequestTimingFilter filter = new RequestTimingFilter(meterRegistry,
+			new SlowRequestLog(10, Duration.ofMinutes(5)), Duration.ofMinutes(10));
+
+	private List<String> instances() {
+		return meterRegistry.find(RequestTimingFilter.LATENCY_METRIC).timers().stream()
+				.map(timer -> timer.getId().getTag("instance"))
+				.sorted()
+				.toList();
+	}
+
+	@Test
+	void timersOfInstancesNoLongerSentRequestsAreRemoved() {
+		long start = System.nanoTime();
+		filter.recordLatency("recipes", "gone:8080", MINUTE / 1000, start);
+		filter.recordLatency("recipes", "staying:8080", MINUTE / 1000, start);
+
+		filter.recordLatency("recipes", "staying:8080", MINUTE / 1000, start + 5 * MINUTE);
+		assertEquals(List.of("gone:8080", "staying:8080"), instances());
+		filter.recordLatency("recipes", "staying:8080", MINUTE / 1000, start + 25 * MINUTE);
+
+		assertEquals(List.of("staying:8080"), instances());
+		Timer staying = meterRegistry.get(RequestTimingFilter.LATENCY_METRIC).tag("instance", "staying:8080").timer();
+		assertEquals(3, staying.count());
+	}
+
+	@Test
+	void anInstanceSentRequestsAgainGetsANewTimer() {
+		long start = System.nanoTime();
+		filter.recordLatency("recipes", "back:8080", MINUTE / 1000, start);
+		filter.recordLatency("recipes", "other:8080", MINUTE / 1000, start + 25 * MINUTE);
+		assertEquals(List.of("other:8080"), instances());
+
+		filter.recordLatency("recipes", "back:8080", MINUTE / 1000, start + 26 * MINUTE);
+
+		assertEquals(List.of("back:8080", "other:8080"), instances());
+		assertEquals(1, meterRegistry.get(RequestTimingFilter.LATENCY_METRIC).tag("instance", "back:8080").timer().count());
+	}
+}
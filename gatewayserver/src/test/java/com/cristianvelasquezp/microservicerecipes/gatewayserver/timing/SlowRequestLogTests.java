@@ -0,0 +1,102 @@
+package com.cristianvelasquezp.microservicerecipes.gatewayserver.timing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowRequestLogTests {
+
+	private final AtomicLong nanoClock = new AtomicLong();
+
+	private final SlowRequestLog log = new SlowRequestLog(3, Duration.ofMinutes(5), nanoClock::get);
+
+	private static SlowRequest request(double totalMs) {
+		return new SlowRequest(Instant.now(), "GET", "/recipes/recipes/1", "recipes", "localhost:8080", 200, totalMs, null, null, null);
+	}
+
+	private void offer(double totalMs) {
+		if (log.isSlowEnough(totalMs)) {
+			log.offer(request(totalMs));
+		}
+	}
+
+	private List<Double> totals() {
+		return log.slowest().stream().map(SlowRequest::totalMs).toList();
+	}
+
+	@Test
+	void keepsTheSlowestRequestsSlowestFirst() {
+		for (double totalMs : new double[]{5, 50, 1, 20, 40, 2}) {
+			offer(totalMs);
+		}
+
+		assertEquals(List.of(50.0, 40.0, 20.0), totals());
+	}
+
+	@Test
+	void turnsAwayRequestsFasterThanAllHeldOnceFull() {
+		offer(10);
+		offer(20);
+		assertTrue(log.isSlowEnough(1));
+		offer(30);
+
+		assertFalse(log.isSlowEnough(10));
+		assertTrue(log.isSlowEnough(11));
+	}
+
+	@Test
+	void clearStartsOver() {
+		offer(10);
+		offer(20);
+		offer(30);
+
+		log.clear();
+		offer(1);
+
+		assertEquals(List.of(1.0), totals());
+	}
+
+	@Test
+	void requestsAgeOutOfTheWindow() {
+		offer(30);
+		nanoClock.addAndGet(Duration.ofMinutes(2).toNanos());
+		offer(10);
+		offer(20);
+		offer(15);
+
+		assertEquals(List.of(30.0, 20.0, 15.0), totals());
+		nanoClock.addAndGet(Duration.ofMinutes(3).toNanos());
+		assertEquals(List.of(20.0, 15.0, 10.0), totals());
+		nanoClock.addAndGet(Duration.ofMinutes(2).toNanos());
+		assertEquals(List.of(), totals());
+	}
+
+	@Test
+	void aFullSlotTurnsAwayRequestsOnlyUntilItEnds() {
+		offer(10);
+		offer(20);
+		offer(30);
+		assertFalse(log.isSlowEnough(5));
+
+		nanoClock.addAndGet(Duration.ofMinutes(1).toNanos());
+		assertTrue(log.isSlowEnough(5));
+		offer(5);
+
+		assertEquals(List.of(30.0, 20.0, 10.0), totals());
+	}
+
+	@Test
+	void noCapacityKeepsNothing() {
+		SlowRequestLog none = new SlowRequestLog(0, Duration.ofMinutes(5), nanoClock::get);
+
+		assertFalse(none.isSlowEnough(1000));
+		none.offer(request(1000));
+
+		assertEquals(List.of(), none.slowest());
+	}
+}
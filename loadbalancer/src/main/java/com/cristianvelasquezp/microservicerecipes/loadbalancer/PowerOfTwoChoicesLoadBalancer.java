@@ -0,0 +1,229 @@
+package com.cristianvelasquezp.microservicerecipes.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Picks two instances at random and sends the request to the one with the lower cost: its
+ * latency times one more than its requests in flight. The latency is a peak-sensitive moving
+ * average (peak EWMA): a slower response raises it at once, faster ones bring it down over
+ * {@code decay}, and it also decays while the instance gets no responses, so an instance that was
+ * slow is tried again later. An instance not measured yet costs nothing until it has a request in
+ * flight, and then more than any measured one until that request returns.
+ * <p>
+ * Fed by the {@link LoadBalancerLifecycle} callbacks that the load-balanced clients make around
+ * each request: the gateway's load-balancer filter and WebClient, the services' Feign clients, and
+ * both legs of a hedged request, whose second instance is also chosen here. A failed request
+ * counts as at least {@code failureLatency}, so an instance that fails fast does not attract
+ * traffic. Those callers do not report cancelled requests; a request still in flight after
+ * {@code pendingTimeout} is no longer counted.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements ReactorServiceInstanceLoadBalancer, LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	private static final double UNMEASURED_PENALTY = TimeUnit.SECONDS.toNanos(1000);
+
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+	private final String serviceId;
+
+	private final double decayNanos;
+
+	private final long failureLatencyNanos;
+
+	private final long pendingTimeoutNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+
+	private final AtomicLong nextSweep;
+
+	public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+										 Duration decay, Duration failureLatency, Duration pendingTimeout) {
+		this(serviceInstanceListSupplierProvider, serviceId, decay, failureLatency, pendingTimeout, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock time in nanoseconds, {@link System#nanoTime()} but for simulations
+	 */
+	public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, String serviceId,
+										 Duration decay, Duration failureLatency, Duration pendingTimeout, LongSupplier nanoClock) {
+		this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+		this.serviceId = serviceId;
+		this.decayNanos = decay.toNanos();
+		this.failureLatencyNanos = failureLatency.toNanos();
+		this.pendingTimeoutNanos = pendingTimeout.toNanos();
+		this.nanoClock = nanoClock;
+		this.nextSweep = new AtomicLong(nanoClock.getAsLong() + SWEEP_INTERVAL_NANOS);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Mono<Response<ServiceInstance>> choose(Request request) {
+		ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request).next().map(this::pick);
+	}
+
+	private Response<ServiceInstance> pick(List<ServiceInstance> instances) {
+		if (instances.isEmpty()) {
+			return new EmptyResponse();
+		}
+		if (instances.size() == 1) {
+			return new DefaultResponse(instances.getFirst());
+		}
+		long now = nanoClock.getAsLong();
+		sweepIfDue(now);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(instances.size());
+		int second = random.nextInt(instances.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+		ServiceInstance a = instances.get(first);
+		ServiceInstance b = instances.get(second);
+		return new DefaultResponse(cost(a, now) <= cost(b, now) ? a : b);
+	}
+
+	double cost(ServiceInstance instance, long now) {
+		InstanceLoad load = loads.get(key(instance));
+		return load == null ? 0 : load.cost(now);
+	}
+
+	@Override
+	public void onStart(Request<Object> request) {
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		if (lbResponse != null && lbResponse.hasServer()) {
+			loads.computeIfAbsent(key(lbResponse.getServer()), key -> new InstanceLoad(decayNanos))
+					.started(request, nanoClock.getAsLong());
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+		if (lbResponse == null || !lbResponse.hasServer()) {
+			return;
+		}
+		InstanceLoad load = loads.get(key(lbResponse.getServer()));
+		if (load != null) {
+			boolean failed = completionContext.status() == CompletionContext.Status.FAILED;
+			load.completed(completionContext.getLoadBalancerRequest(), nanoClock.getAsLong(), failed ? failureLatencyNanos : 0);
+		}
+	}
+
+	private void sweepIfDue(long now) {
+		long due = nextSweep.get();
+		if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+			return;
+		}
+		for (InstanceLoad load : loads.values()) {
+			load.expirePending(now - pendingTimeoutNanos);
+		}
+	}
+
+	private static String key(ServiceInstance instance) {
+		return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+	}
+
+	@Override
+	public String toString() {
+		return "PowerOfTwoChoicesLoadBalancer{serviceId='" + serviceId + "'}";
+	}
+
+	/**
+	 * Requests in flight to one instance, by identity of the load-balancer request and with their
+	 * start time, and its peak EWMA latency.
+	 */
+	static final class InstanceLoad {
+
+		private final Map<Identity, Long> pending = new ConcurrentHashMap<>();
+
+		private final double decayNanos;
+
+		private double latency;
+
+		private long updated;
+
+		InstanceLoad(double decayNanos) {
+			this.decayNanos = decayNanos;
+		}
+
+		void started(Object request, long now) {
+			pending.put(new Identity(request), now);
+		}
+
+		void completed(Object request, long now, long minLatency) {
+			Long start = pending.remove(new Identity(request));
+			if (start != null) {
+				observe(Math.max(now - start, minLatency), now);
+			}
+		}
+
+		private synchronized void observe(double rtt, long now) {
+			if (rtt > latency) {
+				latency = rtt;
+			} else {
+				double weight = Math.exp(-Math.max(now - updated, 0) / decayNanos);
+				latency = latency * weight + rtt * (1 - weight);
+			}
+			updated = now;
+		}
+
+		double cost(long now) {
+			int inFlight = pending.size();
+			double decayed;
+			synchronized (this) {
+				decayed = latency * Math.exp(-Math.max(now - updated, 0) / decayNanos);
+			}
+			if (decayed == 0) {
+				return inFlight == 0 ? 0 : UNMEASURED_PENALTY + inFlight;
+			}
+			return decayed * (inFlight + 1);
+		}
+
+		void expirePending(long startedBefore) {
+			pending.values().removeIf(start -> start < startedBefore);
+		}
+	}
+
+	/**
+	 * Compares requests by identity; load-balancer requests with equal contents are still two
+	 * requests in flight.
+	 */
+	private record Identity(Object request) {
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Identity identity && identity.request == request;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(request);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.cristianvelasquezp.microservicerecipes.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load-balancer configuration for every service an application calls, to be named as the
+ * {@code defaultConfiguration} of {@code @LoadBalancerClients}; deliberately not a
+ * {@code @Configuration}, as its beans belong in each service's own load-balancer context, which
+ * has no Boot conversion service, so durations are parsed by hand. The balancer is declared with
+ * its own type so the load-balanced clients find it as a {@code LoadBalancerLifecycle} too.
+ */
+public class PowerOfTwoChoicesLoadBalancerConfiguration {
+
+	@Bean
+	public PowerOfTwoChoicesLoadBalancer powerOfTwoChoicesLoadBalancer(Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+																	   @Value("${loadbalancer.decay:10s}") String decay,
+																	   @Value("${loadbalancer.failure-latency:1s}") String failureLatency,
+																	   @Value("${loadbalancer.pending-timeout:1m}") String pendingTimeout) {
+		String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new PowerOfTwoChoicesLoadBalancer(loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId,
+				DurationStyle.detectAndParse(decay), DurationStyle.detectAndParse(failureLatency), DurationStyle.detectAndParse(pendingTimeout));
+	}
+}
@@ -0,0 +1,121 @@
+package com.cristianvelasquezp.microservicerecipes.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PowerOfTwoChoicesLoadBalancerTests {
+
+	private static final ServiceInstance FAST = new DefaultServiceInstance("recipes-1", "recipes", "fast", 8080, false);
+
+	private static final ServiceInstance SLOW = new DefaultServiceInstance("recipes-2", "recipes", "slow", 8080, false);
+
+	private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+	private final PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer(
+			ServiceInstanceListSuppliers.toProvider("recipes", FAST, SLOW), "recipes",
+			Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofMinutes(1), now::get);
+
+	private Request<Object> start(ServiceInstance instance) {
+		Request<Object> request = new DefaultRequest<>();
+		loadBalancer.onStartRequest(request, new DefaultResponse(instance));
+		return request;
+	}
+
+	private void complete(Request<Object> request, ServiceInstance instance, CompletionContext.Status status) {
+		loadBalancer.onComplete(new CompletionContext<>(status, request, new DefaultResponse(instance)));
+	}
+
+	private void call(ServiceInstance instance, long millis) {
+		Request<Object> request = start(instance);
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+		complete(request, instance, CompletionContext.Status.SUCCESS);
+	}
+
+	private ServiceInstance choose() {
+		Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+		return response.getServer();
+	}
+
+	@Test
+	void choosesTheInstanceWithTheLowerLatency() {
+		call(FAST, 10);
+		call(SLOW, 100);
+
+		for (int i = 0; i < 20; i++) {
+			assertEquals(FAST, choose());
+		}
+	}
+
+	@Test
+	void requestsInFlightRaiseTheCost() {
+		call(FAST, 10);
+		call(SLOW, 30);
+		for (int i = 0; i < 3; i++) {
+			start(FAST);
+		}
+
+		assertEquals(SLOW, choose());
+	}
+
+	@Test
+	void latencyJumpsToAPeakAndComesDownOverTime() {
+		call(FAST, 10);
+		call(FAST, 200);
+		double peak = loadBalancer.cost(FAST, now.get());
+
+		call(FAST, 10);
+		double afterOneFastResponse = loadBalancer.cost(FAST, now.get());
+		now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(200), peak, TimeUnit.MILLISECONDS.toNanos(1));
+		assertTrue(afterOneFastResponse > TimeUnit.MILLISECONDS.toNanos(150));
+		assertTrue(loadBalancer.cost(FAST, now.get()) < TimeUnit.MILLISECONDS.toNanos(10));
+	}
+
+	@Test
+	void unmeasuredInstanceIsAvoidedWhileItsFirstRequestIsInFlight() {
+		call(FAST, 50);
+		start(SLOW);
+
+		assertEquals(FAST, choose());
+	}
+
+	@Test
+	void failuresCountAsSlowResponses() {
+		call(SLOW, 10);
+		Request<Object> request = start(FAST);
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		complete(request, FAST, CompletionContext.Status.FAILED);
+
+		assertEquals(SLOW, choose());
+	}
+
+	@Test
+	void requestsNeverCompletedStopCountingAfterThePendingTimeout() {
+		call(FAST, 10);
+		call(SLOW, 20);
+		for (int i = 0; i < 5; i++) {
+			start(FAST);
+		}
+		assertEquals(SLOW, choose());
+
+		now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+		call(FAST, 10);
+		call(SLOW, 20);
+
+		assertEquals(FAST, choose());
+	}
+}
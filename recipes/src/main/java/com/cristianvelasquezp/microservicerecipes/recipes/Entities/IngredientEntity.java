@@ -11,7 +11,8 @@ import java.util.List;
 @Entity(name = "ingredients")
 public class IngredientEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredients_seq")
+    @SequenceGenerator(name = "ingredients_seq", sequenceName = "ingredients_id_seq", allocationSize = 50)
     private Long id;
     @NotNull
     @NotEmpty
@@ -1,5 +1,6 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.Entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -12,6 +13,7 @@ public class UserEntity {
     private Long id;
     private String username;
     private String email;
+    @JsonIgnore
     private String password;
     private String firstName;
     private String lastName;
@@ -0,0 +1,85 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.Entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Local copy of the public part of a user, kept up to date from the users service's change events.
+ * A deleted user is kept as a tombstone so that a late event cannot bring it back.
+ */
+@Entity
+@Table(name = "user_summaries")
+public class UserSummaryEntity {
+
+    @Id
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    @Column(nullable = false)
+    private Long version;
+    @Column(nullable = false)
+    private boolean deleted;
+
+    public UserSummaryEntity() {
+    }
+
+    public UserSummaryEntity(Long id, String username, String firstName, String lastName, Long version, boolean deleted) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.version = version;
+        this.deleted = deleted;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFirstName() {
+        return this.firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return this.lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean isDeleted() {
+        return this.deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String RECIPES_CACHE = "recipes";
+
+    /**
+     * Caffeine caches bounded by size and TTL. Empty results, which the cache stores as
+     * {@link NullValue}, expire after the shorter negative TTL, so a row created through another
+     * instance is found soon. The manager is transaction aware, so evictions issued inside a write
+     * transaction happen after it commits and a concurrent read cannot re-cache the old row.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${recipes.cache.maximum-size:10000}") long maximumSize,
+                                     @Value("${recipes.cache.ttl:10m}") String ttl,
+                                     @Value("${recipes.cache.negative-ttl:10s}") String negativeTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(RECIPES_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new NegativeExpiry(DurationStyle.detectAndParse(ttl), DurationStyle.detectAndParse(negativeTtl)))
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private record NegativeExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return (value == NullValue.INSTANCE ? negativeTtl : ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.config;
+
+import com.cristianvelasquezp.microservicerecipes.loadbalancer.PowerOfTwoChoicesLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feign clients pick instances with the power of two choices instead of round robin.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,26 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.config;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.events.UserChangedEvent;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.UserProfileService;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.UserSummaryService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+@Configuration
+public class UserEventsConfig {
+
+    /**
+     * Consumes the users service's change events (binding {@code userEvents-in-0}) into the local
+     * user summaries, and drops the cached profile of every user that changed.
+     */
+    @Bean
+    public Consumer<UserChangedEvent> userEvents(UserSummaryService userSummaryService, UserProfileService userProfileService) {
+        return event -> {
+            if (userSummaryService.apply(event)) {
+                userProfileService.evictUserProfile(event.id());
+            }
+        };
+    }
+}
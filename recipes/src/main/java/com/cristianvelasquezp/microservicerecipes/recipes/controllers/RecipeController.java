@@ -1,14 +1,19 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.controllers;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
-import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.RecipeMatchModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.UserRecipesModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.RecipeExportService;
 import com.cristianvelasquezp.microservicerecipes.recipes.services.RecipeService;
-import com.cristianvelasquezp.microservicerecipes.recipes.services.client.UserFeignClient;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.UserRecipesService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,22 +21,65 @@ public class RecipeController {
 
     RecipeService recipeService;
 
-    UserFeignClient userFeignClient;
+    RecipeExportService recipeExportService;
 
-    public RecipeController(RecipeService recipeService, UserFeignClient userFeignClient) {
+    UserRecipesService userRecipesService;
+
+    public RecipeController(RecipeService recipeService, RecipeExportService recipeExportService, UserRecipesService userRecipesService) {
         this.recipeService = recipeService;
-        this.userFeignClient = userFeignClient;
+        this.recipeExportService = recipeExportService;
+        this.userRecipesService = userRecipesService;
     }
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * With {@code fields}, each recipe is returned with only the listed properties, plus its id.
+     */
     @GetMapping("/recipes")
-    public List<RecipeEntity> getAllRecipes() {
-        return recipeService.getAllRecipes();
+    public ResponseEntity<List<?>> getAllRecipes(@RequestParam(required = false) Long after,
+                                                 @RequestParam(defaultValue = "" + RecipeService.DEFAULT_PAGE_SIZE) int limit,
+                                                 @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            List<Map<String, Object>> recipes = recipeService.getAllRecipeFields(after, limit, fields);
+            return page(recipes, limit, recipes.isEmpty() ? null : recipes.getLast().get("id"));
+        }
+        List<RecipeEntity> recipes = recipeService.getAllRecipes(after, limit);
+        return page(recipes, limit, recipes.isEmpty() ? null : recipes.getLast().getId());
+    }
+
+    private static ResponseEntity<List<?>> page(List<?> recipes, int limit, Object lastId) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (recipes.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+        }
+        return response.body(recipes);
+    }
+
+    @GetMapping(value = "/recipes/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRecipes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(recipeExportService::exportRecipes);
+    }
+
+    @GetMapping("/recipes/search")
+    public List<RecipeEntity> searchRecipes(@RequestParam String q,
+                                            @RequestParam(defaultValue = "" + RecipeService.DEFAULT_SEARCH_LIMIT) int limit) {
+        return recipeService.searchRecipes(q, limit);
+    }
+
+    @GetMapping("/recipes/cook")
+    public List<RecipeMatchModel> findRecipesByIngredients(@RequestParam List<Long> ingredients,
+                                                           @RequestParam(defaultValue = "1.0") double minCoverage,
+                                                           @RequestParam(defaultValue = "" + RecipeService.DEFAULT_SEARCH_LIMIT) int limit) {
+        return recipeService.findRecipesByIngredients(ingredients, minCoverage, limit);
     }
 
     @GetMapping("/recipes/{id}")
-    public ResponseEntity<RecipeEntity> getRecipeById(@PathVariable String id) {
+    public ResponseEntity<?> getRecipeById(@PathVariable String id, @RequestParam(required = false) List<String> fields) {
         Long idLong = Long.parseLong(id);
-        Optional<RecipeEntity> recipe = recipeService.getRecipeById(idLong);
+        Optional<?> recipe = fields != null ? recipeService.getRecipeFieldsById(idLong, fields) : recipeService.getRecipeById(idLong);
         if (recipe.isPresent()) {
             return ResponseEntity.ok(recipe.get());
         }else {
@@ -44,6 +92,11 @@ public class RecipeController {
         return recipeService.createRecipe(recipe);
     }
 
+    @PostMapping("/recipes/batch")
+    public List<RecipeEntity> createRecipes(@RequestBody List<RecipeEntity> recipes) {
+        return recipeService.createRecipes(recipes);
+    }
+
     @PutMapping("/recipes")
     public RecipeEntity updateRecipe(@RequestBody RecipeEntity recipe) {
         return recipeService.updateRecipe(recipe);
@@ -55,9 +108,9 @@ public class RecipeController {
         return recipeService.deleteRecipe(idLong);
     }
 
-    //This is a test method to get recipes by user id
     @GetMapping("/recipes/user/{id}")
-    public UserEntity getRecipesByUserId(@PathVariable String id) {
-        return userFeignClient.getUserById(id).getBody();
+    public UserRecipesModel getRecipesByUserId(@PathVariable String id) {
+        Long idLong = Long.parseLong(id);
+        return userRecipesService.getRecipesByUserId(idLong);
     }
 }
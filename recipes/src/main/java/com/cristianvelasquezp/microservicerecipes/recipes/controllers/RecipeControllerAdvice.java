@@ -2,7 +2,11 @@ package com.cristianvelasquezp.microservicerecipes.recipes.controllers;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeVersionConflictException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserServiceUnavailableException;
 import com.cristianvelasquezp.microservicerecipes.recipes.models.ErrorResponseModel;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -22,6 +26,26 @@ public class RecipeControllerAdvice {
         return ResponseEntity.status(404).body(new ErrorResponseModel("Recipe not found", e.getMessage()));
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleUserNotFoundException(UserNotFoundException e) {
+        return ResponseEntity.status(404).body(new ErrorResponseModel("User not found", e.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleUserServiceUnavailableException(UserServiceUnavailableException e) {
+        return ResponseEntity.status(503).body(new ErrorResponseModel("Service unavailable", e.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleRecipeVersionConflictException(RecipeVersionConflictException e) {
+        return ResponseEntity.status(409).body(new ErrorResponseModel("Conflict", e.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(409).body(new ErrorResponseModel("Conflict", "The recipe was modified by another request"));
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorResponseModel> handleIllegalArgumentException(IllegalArgumentException e) {
         return ResponseEntity.status(400).body(new ErrorResponseModel("Bad request", e.getMessage()));
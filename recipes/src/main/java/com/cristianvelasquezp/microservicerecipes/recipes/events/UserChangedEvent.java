@@ -0,0 +1,12 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.events;
+
+/**
+ * A user write announced by the users service. Events of one user are ordered by {@code version};
+ * a deletion carries the highest possible version, so nothing is applied after it.
+ */
+public record UserChangedEvent(Type type, Long id, String username, String firstName, String lastName, Long version) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
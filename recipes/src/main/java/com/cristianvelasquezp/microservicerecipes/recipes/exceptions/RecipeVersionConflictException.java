@@ -0,0 +1,11 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.exceptions;
+
+public class RecipeVersionConflictException extends RuntimeException {
+    public RecipeVersionConflictException(String message) {
+        super(message);
+    }
+
+    public RecipeVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
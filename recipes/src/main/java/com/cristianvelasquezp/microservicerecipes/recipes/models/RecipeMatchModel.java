@@ -0,0 +1,52 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.models;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+
+public class RecipeMatchModel {
+    private RecipeEntity recipe;
+    private int matchedIngredients;
+    private int totalIngredients;
+    private double coverage;
+
+    public RecipeMatchModel() {
+    }
+
+    public RecipeMatchModel(RecipeEntity recipe, int matchedIngredients, int totalIngredients, double coverage) {
+        this.recipe = recipe;
+        this.matchedIngredients = matchedIngredients;
+        this.totalIngredients = totalIngredients;
+        this.coverage = coverage;
+    }
+
+    public RecipeEntity getRecipe() {
+        return recipe;
+    }
+
+    public void setRecipe(RecipeEntity recipe) {
+        this.recipe = recipe;
+    }
+
+    public int getMatchedIngredients() {
+        return matchedIngredients;
+    }
+
+    public void setMatchedIngredients(int matchedIngredients) {
+        this.matchedIngredients = matchedIngredients;
+    }
+
+    public int getTotalIngredients() {
+        return totalIngredients;
+    }
+
+    public void setTotalIngredients(int totalIngredients) {
+        this.totalIngredients = totalIngredients;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    public void setCoverage(double coverage) {
+        this.coverage = coverage;
+    }
+}
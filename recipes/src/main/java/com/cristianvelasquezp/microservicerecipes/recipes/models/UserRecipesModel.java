@@ -0,0 +1,35 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.models;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+
+import java.util.List;
+
+public class UserRecipesModel {
+    private UserEntity user;
+    private List<RecipeEntity> recipes;
+
+    public UserRecipesModel() {
+    }
+
+    public UserRecipesModel(UserEntity user, List<RecipeEntity> recipes) {
+        this.user = user;
+        this.recipes = recipes;
+    }
+
+    public UserEntity getUser() {
+        return user;
+    }
+
+    public void setUser(UserEntity user) {
+        this.user = user;
+    }
+
+    public List<RecipeEntity> getRecipes() {
+        return recipes;
+    }
+
+    public void setRecipes(List<RecipeEntity> recipes) {
+        this.recipes = recipes;
+    }
+}
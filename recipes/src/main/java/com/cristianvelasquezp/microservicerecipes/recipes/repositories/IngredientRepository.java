@@ -0,0 +1,12 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IngredientRepository extends JpaRepository<IngredientEntity, Long> {
+
+    List<IngredientEntity> findByValueIn(Collection<String> values);
+}
@@ -1,8 +1,85 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface RecipeRepository extends JpaRepository<RecipeEntity, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+public interface RecipeRepository extends JpaRepository<RecipeEntity, Long>, RecipeRepositoryCustom {
+
+    /**
+     * Keyset page: the recipes whose id is strictly greater than {@code id}, in id order.
+     * Served by the primary key index, so the cost does not grow with how deep the client pages.
+     * The category is joined in the same select; ingredients are batch-fetched for the whole page
+     * in one extra select the first time any of them is touched.
+     */
+    @EntityGraph(attributePaths = "category")
+    List<RecipeEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "ingredients"})
+    Optional<RecipeEntity> findById(Long id);
+
+    @EntityGraph(attributePaths = "category")
+    List<RecipeEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * The recipes of one author, in id order. Served by the index on {@code recipes.user_id}.
+     */
+    @EntityGraph(attributePaths = "category")
+    List<RecipeEntity> findByUserIdOrderByIdAsc(Integer userId);
+
+    /**
+     * Every recipe in id order, read through a forward-only database cursor in fetch-size chunks.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<RecipeEntity> streamAllByOrderByIdAsc();
+
+    /**
+     * Writes the recipe's columns in one statement, but only if the stored version still equals
+     * the one the caller read. Returns the number of rows updated, so 0 means the recipe is gone
+     * or was changed concurrently. Ingredient links are not touched.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE recipes r
+            SET r.name = :#{#recipe.name}, r.description = :#{#recipe.description}, r.category = :#{#recipe.category},
+                r.directions = :#{#recipe.directions}, r.userId = :#{#recipe.userId}, r.date = :#{#recipe.date},
+                r.version = r.version + 1
+            WHERE r.id = :#{#recipe.id} AND r.version = :#{#recipe.version}
+            """)
+    int updateIfVersionMatches(@Param("recipe") RecipeEntity recipe);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_ingredients WHERE recipe_id = :recipeId AND ingredient_id NOT IN (:ingredientIds)", nativeQuery = true)
+    int deleteIngredientLinksExcept(@Param("recipeId") Long recipeId, @Param("ingredientIds") Collection<Long> ingredientIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_ingredients WHERE recipe_id = :recipeId", nativeQuery = true)
+    int deleteIngredientLinks(@Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO recipe_ingredients (recipe_id, ingredient_id)
+            SELECT :recipeId, i.id FROM ingredients i
+            WHERE i.id IN (:ingredientIds)
+              AND NOT EXISTS (SELECT 1 FROM recipe_ingredients ri WHERE ri.recipe_id = :recipeId AND ri.ingredient_id = i.id)
+            """, nativeQuery = true)
+    int insertIngredientLinks(@Param("recipeId") Long recipeId, @Param("ingredientIds") Collection<Long> ingredientIds);
 }
@@ -0,0 +1,20 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface RecipeRepositoryCustom {
+
+    /**
+     * Keyset page like {@code findByIdGreaterThanOrderByIdAsc}, but only the given attributes are
+     * selected. Each recipe comes back as a map from attribute name to value, in the order the
+     * attributes were given. {@code fields} must name basic attributes of the recipe.
+     */
+    List<Map<String, Object>> findFieldsByIdGreaterThan(List<String> fields, long id, int limit);
+
+    /**
+     * The given attributes of one recipe, in the order they were given.
+     */
+    Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id);
+}
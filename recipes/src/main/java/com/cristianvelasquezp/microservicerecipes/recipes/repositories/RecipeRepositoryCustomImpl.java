@@ -0,0 +1,69 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tuple queries that select only the requested columns, so neither the database nor the
+ * persistence context handles the rest of the row, and no association is loaded.
+ */
+class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    RecipeRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdGreaterThan(List<String> fields, long id, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<RecipeEntity> recipe = query.from(RecipeEntity.class);
+        query.multiselect(columns(recipe, fields))
+                .where(builder.greaterThan(recipe.get("id"), id))
+                .orderBy(builder.asc(recipe.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultStream()
+                .map(row -> toMap(fields, row))
+                .toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<RecipeEntity> recipe = query.from(RecipeEntity.class);
+        query.multiselect(columns(recipe, fields))
+                .where(builder.equal(recipe.get("id"), id));
+        return entityManager.createQuery(query).getResultStream()
+                .findFirst()
+                .map(row -> toMap(fields, row));
+    }
+
+    private static List<Selection<?>> columns(Root<RecipeEntity> recipe, List<String> fields) {
+        List<Selection<?>> columns = new ArrayList<>();
+        for (String field : fields) {
+            columns.add(recipe.get(field).alias(field));
+        }
+        return columns;
+    }
+
+    private static Map<String, Object> toMap(List<String> fields, Tuple row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, row.get(field));
+        }
+        return values;
+    }
+}
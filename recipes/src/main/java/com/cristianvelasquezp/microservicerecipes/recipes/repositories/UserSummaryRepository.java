@@ -0,0 +1,7 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserSummaryRepository extends JpaRepository<UserSummaryEntity, Long> {
+}
@@ -0,0 +1,14 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+
+import java.util.List;
+
+public interface IngredientDictionaryService {
+
+    /**
+     * Replaces the ingredients of every recipe with their dictionary entries, inserting the values
+     * that are not in the dictionary yet. Values are normalized and duplicates within a recipe dropped.
+     */
+    public void resolveIngredients(List<RecipeEntity> recipes);
+}
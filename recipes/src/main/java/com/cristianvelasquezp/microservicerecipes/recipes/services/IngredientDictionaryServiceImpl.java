@@ -0,0 +1,144 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.IngredientRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Deduplicates ingredients on write. All the values of a write are resolved together: cache hits
+ * first, then one {@code IN} query for the rest, then one batched insert for the values that are
+ * still unknown. Resolved value-to-id pairs are kept in a bounded cache.
+ * <p>
+ * New values are inserted in a transaction of their own, committed before the caller's, so every
+ * cached id is one that exists. When a concurrent write inserts the same value first, the unique
+ * constraint on the value fails only that inner transaction, not the caller's; the other write's
+ * rows are read back and the values still unknown are inserted again.
+ */
+@Service
+public class IngredientDictionaryServiceImpl implements IngredientDictionaryService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    private final Cache<String, Long> ingredientIds;
+
+    public IngredientDictionaryServiceImpl(IngredientRepository ingredientRepository, PlatformTransactionManager transactionManager,
+                                           @Value("${recipes.ingredients.cache-size:10000}") long cacheSize) {
+        this.ingredientRepository = ingredientRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ingredientIds = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    static String normalize(String value) {
+        return WHITESPACE.matcher(value.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    @Transactional
+    public void resolveIngredients(List<RecipeEntity> recipes) {
+        Set<String> values = new LinkedHashSet<>();
+        for (RecipeEntity recipe : recipes) {
+            if (recipe.getIngredients() == null) {
+                continue;
+            }
+            for (IngredientEntity ingredient : recipe.getIngredients()) {
+                if (ingredient.getValue() != null && !ingredient.getValue().isBlank()) {
+                    values.add(normalize(ingredient.getValue()));
+                } else if (ingredient.getId() == null) {
+                    throw new IllegalArgumentException("Ingredient must have a value or an id");
+                }
+            }
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+
+        Map<String, IngredientEntity> resolved = new HashMap<>();
+        ingredientIds.getAllPresent(values).forEach((value, id) -> resolved.put(value, new IngredientEntity(id, value)));
+        List<String> missing = values.stream().filter(value -> !resolved.containsKey(value)).toList();
+        if (!missing.isEmpty()) {
+            for (IngredientEntity ingredient : ingredientRepository.findByValueIn(missing)) {
+                resolved.put(ingredient.getValue(), ingredient);
+                ingredientIds.put(ingredient.getValue(), ingredient.getId());
+            }
+            List<String> unknown = missing.stream().filter(value -> !resolved.containsKey(value)).toList();
+            if (!unknown.isEmpty()) {
+                for (IngredientEntity ingredient : insert(unknown)) {
+                    resolved.put(ingredient.getValue(), ingredient);
+                    ingredientIds.put(ingredient.getValue(), ingredient.getId());
+                }
+            }
+        }
+
+        for (RecipeEntity recipe : recipes) {
+            if (recipe.getIngredients() == null) {
+                continue;
+            }
+            Map<Long, IngredientEntity> ingredients = new LinkedHashMap<>();
+            for (IngredientEntity ingredient : recipe.getIngredients()) {
+                if (ingredient.getValue() != null && !ingredient.getValue().isBlank()) {
+                    IngredientEntity entry = resolved.get(normalize(ingredient.getValue()));
+                    ingredients.putIfAbsent(entry.getId(), entry);
+                } else {
+                    ingredients.putIfAbsent(ingredient.getId(), ingredient);
+                }
+            }
+            recipe.setIngredients(new ArrayList<>(ingredients.values()));
+        }
+    }
+
+    /**
+     * Inserts the values, or reads back the ones a concurrent write inserted first, and returns
+     * them all with their ids.
+     */
+    private List<IngredientEntity> insert(List<String> values) {
+        List<IngredientEntity> ingredients = new ArrayList<>();
+        List<String> remaining = values;
+        for (int attempt = 1; ; attempt++) {
+            List<IngredientEntity> created = remaining.stream().map(value -> new IngredientEntity(null, value)).toList();
+            try {
+                ingredients.addAll(newTransaction.execute(status -> ingredientRepository.saveAllAndFlush(created)));
+                return ingredients;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+            List<String> retry = remaining;
+            List<IngredientEntity> existing = newTransaction.execute(status -> ingredientRepository.findByValueIn(retry));
+            ingredients.addAll(existing);
+            Set<String> found = new HashSet<>();
+            existing.forEach(ingredient -> found.add(ingredient.getValue()));
+            remaining = remaining.stream().filter(value -> !found.contains(value)).toList();
+            if (remaining.isEmpty()) {
+                return ingredients;
+            }
+        }
+    }
+}
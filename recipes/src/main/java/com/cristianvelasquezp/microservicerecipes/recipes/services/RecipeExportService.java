@@ -0,0 +1,9 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface RecipeExportService {
+
+    public long exportRecipes(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,77 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON. Recipes are read from a database cursor and
+ * handled in chunks: each chunk batch-loads its ingredients, is written and flushed, and is then
+ * cleared from the persistence context, so heap use does not grow with the size of the catalog.
+ */
+@Service
+public class RecipeExportServiceImpl implements RecipeExportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final byte NEW_LINE = '\n';
+
+    private final RecipeRepository recipeRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    public RecipeExportServiceImpl(RecipeRepository recipeRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.recipeRepository = recipeRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportRecipes(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        List<RecipeEntity> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<RecipeEntity> recipes = recipeRepository.streamAllByOrderByIdAsc()) {
+            Iterator<RecipeEntity> iterator = recipes.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    exported += writeChunk(chunk, outputStream);
+                }
+            }
+            exported += writeChunk(chunk, outputStream);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while exporting recipes: " + e.getMessage(), e);
+        }
+        return exported;
+    }
+
+    private int writeChunk(List<RecipeEntity> chunk, OutputStream outputStream) throws IOException {
+        int written = chunk.size();
+        for (RecipeEntity recipe : chunk) {
+            Hibernate.initialize(recipe.getIngredients());
+            outputStream.write(objectMapper.writeValueAsBytes(recipe));
+            outputStream.write(NEW_LINE);
+        }
+        outputStream.flush();
+        chunk.clear();
+        entityManager.clear();
+        return written;
+    }
+}
@@ -1,18 +1,47 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.services;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.RecipeMatchModel;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface RecipeService {
 
-    public List<RecipeEntity> getAllRecipes();
+    int DEFAULT_PAGE_SIZE = 50;
+
+    int MAX_PAGE_SIZE = 1000;
+
+    int MAX_BATCH_SIZE = 5000;
+
+    int DEFAULT_SEARCH_LIMIT = 20;
+
+    int MAX_SEARCH_LIMIT = 100;
+
+    int MAX_AVAILABLE_INGREDIENTS = 200;
+
+    /**
+     * The recipe attributes a client can ask for with {@code fields}. The id is always returned.
+     */
+    List<String> SELECTABLE_FIELDS = List.of("id", "name", "description", "date", "directions", "userId", "version");
+
+    public List<RecipeEntity> getAllRecipes(Long after, int limit);
+
+    public List<Map<String, Object>> getAllRecipeFields(Long after, int limit, List<String> fields);
 
     public Optional<RecipeEntity> getRecipeById(Long id);
 
+    public Optional<Map<String, Object>> getRecipeFieldsById(Long id, List<String> fields);
+
+    public List<RecipeEntity> searchRecipes(String query, int limit);
+
+    public List<RecipeMatchModel> findRecipesByIngredients(List<Long> ingredientIds, double minCoverage, int limit);
+
     public RecipeEntity createRecipe(RecipeEntity recipe);
 
+    public List<RecipeEntity> createRecipes(List<RecipeEntity> recipes);
+
     public RecipeEntity updateRecipe(RecipeEntity recipe);
 
     public boolean deleteRecipe(Long id);
@@ -1,33 +1,114 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.services;
 
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.config.CacheConfig;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeVersionConflictException;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.RecipeMatchModel;
 import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.IngredientCoverageIndex;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeIndexer;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.logging.Logger;
 
 @Service
 public class RecipeServiceImpl implements RecipeService {
 
+    /**
+     * How many recipes a bulk create persists before flushing and clearing the persistence context.
+     * A multiple of hibernate.jdbc.batch_size so every flush sends full JDBC batches.
+     */
+    static final int FLUSH_INTERVAL = 500;
+
     RecipeRepository recipeRepository;
 
-    public RecipeServiceImpl(RecipeRepository recipeRepository) {
+    EntityManager entityManager;
+
+    IngredientDictionaryService ingredientDictionaryService;
+
+    RecipeIndexer recipeIndexer;
+
+    RecipeSearchIndex recipeSearchIndex;
+
+    IngredientCoverageIndex ingredientCoverageIndex;
+
+    CacheManager cacheManager;
+
+    public RecipeServiceImpl(RecipeRepository recipeRepository, EntityManager entityManager, IngredientDictionaryService ingredientDictionaryService,
+                             RecipeIndexer recipeIndexer, RecipeSearchIndex recipeSearchIndex, IngredientCoverageIndex ingredientCoverageIndex,
+                             CacheManager cacheManager) {
         this.recipeRepository = recipeRepository;
+        this.entityManager = entityManager;
+        this.ingredientDictionaryService = ingredientDictionaryService;
+        this.recipeIndexer = recipeIndexer;
+        this.recipeSearchIndex = recipeSearchIndex;
+        this.ingredientCoverageIndex = ingredientCoverageIndex;
+        this.cacheManager = cacheManager;
     }
 
 
-    public List<RecipeEntity> getAllRecipes() {
+    @Transactional(readOnly = true)
+    public List<RecipeEntity> getAllRecipes(Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long cursor = after == null ? 0L : after;
+        try {
+            List<RecipeEntity> recipes = recipeRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limit));
+            // The first initialization batch-loads the ingredients of every recipe on the page.
+            recipes.forEach(recipe -> Hibernate.initialize(recipe.getIngredients()));
+            return recipes;
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while fetching recipes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Only the requested columns are read, and no association is loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllRecipeFields(Long after, int limit, List<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> selected = selectedFields(fields);
+        long cursor = after == null ? 0L : after;
         try {
-            return recipeRepository.findAll();
+            return recipeRepository.findFieldsByIdGreaterThan(selected, cursor, limit);
         } catch (Exception e) {
             throw new DatabaseConnectionException("An error occurred while fetching recipes: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Read-through cached; concurrent misses for the same id wait for a single load. Unknown ids are
+     * cached as well, for the shorter negative TTL, which keeps id probes off the database; creating
+     * a recipe evicts its id here, and another instance finds it once the negative TTL is over.
+     */
+    @Cacheable(cacheNames = CacheConfig.RECIPES_CACHE, sync = true)
+    @Transactional(readOnly = true)
     public Optional<RecipeEntity> getRecipeById(Long id) {
         try {
             return recipeRepository.findById(id);
@@ -36,33 +117,212 @@ public class RecipeServiceImpl implements RecipeService {
         }
     }
 
+    /**
+     * Not cached: the projection is cheap, and caching every combination of fields is not.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getRecipeFieldsById(Long id, List<String> fields) {
+        List<String> selected = selectedFields(fields);
+        try {
+            return recipeRepository.findFieldsById(selected, id);
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while fetching recipe with id: " + id + " " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The requested fields without blanks and duplicates, with the id first.
+     */
+    private static List<String> selectedFields(List<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ". Selectable fields are " + String.join(", ", SELECTABLE_FIELDS));
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
+    }
+
+    /**
+     * Ranks the matching ids from the search index, then loads those recipes in one query and
+     * returns them in rank order.
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeEntity> searchRecipes(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("A search query is required");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        List<Long> ids = recipeSearchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try {
+            Map<Long, RecipeEntity> recipes = loadRecipes(ids);
+            return ids.stream().map(recipes::get).filter(Objects::nonNull).toList();
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while searching recipes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Coverage is computed on the ingredient bitmap index; only the returned page of recipes is
+     * read from the database, in one query.
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeMatchModel> findRecipesByIngredients(List<Long> ingredientIds, double minCoverage, int limit) {
+        if (ingredientIds == null || ingredientIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one ingredient is required");
+        }
+        if (ingredientIds.size() > MAX_AVAILABLE_INGREDIENTS) {
+            throw new IllegalArgumentException("At most " + MAX_AVAILABLE_INGREDIENTS + " ingredients can be given");
+        }
+        if (!(minCoverage > 0 && minCoverage <= 1)) {
+            throw new IllegalArgumentException("Minimum coverage must be greater than 0 and at most 1");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        List<IngredientCoverageIndex.Match> matches = ingredientCoverageIndex.match(ingredientIds, minCoverage, limit);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        try {
+            Map<Long, RecipeEntity> recipes = loadRecipes(matches.stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+            return matches.stream()
+                    .filter(match -> recipes.containsKey(match.recipeId()))
+                    .map(match -> new RecipeMatchModel(recipes.get(match.recipeId()), match.matchedIngredients(), match.totalIngredients(), match.coverage()))
+                    .toList();
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while matching recipes: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<Long, RecipeEntity> loadRecipes(List<Long> ids) {
+        Map<Long, RecipeEntity> recipes = recipeRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(RecipeEntity::getId, Function.identity()));
+        recipes.values().forEach(recipe -> Hibernate.initialize(recipe.getIngredients()));
+        return recipes;
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.RECIPES_CACHE, key = "#result.id")
+    @Transactional
     public RecipeEntity createRecipe(RecipeEntity recipe) {
+        ingredientDictionaryService.resolveIngredients(List.of(recipe));
         try {
-            return recipeRepository.save(recipe);
+            RecipeEntity created = recipeRepository.save(recipe);
+            recipeIndexer.indexAfterCommit(List.of(created));
+            return created;
         } catch (Exception e) {
             Logger.getGlobal().severe("An error occurred while creating recipe: " + e.getMessage());
             throw new DatabaseConnectionException("An error occurred while creating recipe: " + e.getMessage(), e);
         }
     }
 
+    @Transactional
+    public List<RecipeEntity> createRecipes(List<RecipeEntity> recipes) {
+        if (recipes == null || recipes.isEmpty()) {
+            throw new IllegalArgumentException("At least one recipe is required");
+        }
+        if (recipes.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch can contain at most " + MAX_BATCH_SIZE + " recipes");
+        }
+        if (recipes.stream().anyMatch(recipe -> recipe.getId() != null)) {
+            throw new IllegalArgumentException("Recipes to be created must not have an id");
+        }
+        ingredientDictionaryService.resolveIngredients(recipes);
+        try {
+            for (int i = 0; i < recipes.size(); i++) {
+                entityManager.persist(recipes.get(i));
+                if ((i + 1) % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            recipeIndexer.indexAfterCommit(recipes);
+            // The cache is transaction aware: the ids are evicted once the recipes are committed.
+            Cache cache = cacheManager.getCache(CacheConfig.RECIPES_CACHE);
+            recipes.forEach(created -> cache.evict(created.getId()));
+            return recipes;
+        } catch (Exception e) {
+            Logger.getGlobal().severe("An error occurred while creating recipes: " + e.getMessage());
+            throw new DatabaseConnectionException("An error occurred while creating recipes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Optimistic update in one statement: the row is written only if the client still holds the
+     * current version. Ingredient links are rewritten only when the payload carries ingredients,
+     * with two set-based statements. Only an update that matches no row costs one more query, to
+     * tell a missing recipe from a concurrent change. The recipe is returned as written, with the
+     * server-set date and the version the statement moved to, rather than re-read.
+     */
+    @CacheEvict(cacheNames = CacheConfig.RECIPES_CACHE, key = "#recipe.id")
+    @Transactional
     public RecipeEntity updateRecipe(RecipeEntity recipe) {
         if (recipe.getId() == null) {
             throw new IllegalArgumentException("Recipe must have an id to be updated");
         }
-        recipeRepository.findById(recipe.getId()).orElseThrow(() -> new RecipeNotFoundException("An error occurred while updating recipe: Recipe with id " + recipe.getId() + " not found"));
+        if (recipe.getVersion() == null) {
+            throw new IllegalArgumentException("Recipe must have a version to be updated");
+        }
+        if (recipe.getCategory() == null || recipe.getCategory().getId() == null) {
+            throw new IllegalArgumentException("Recipe must have a category to be updated");
+        }
+        int updated;
+        try {
+            recipe.setDate(new Timestamp(System.currentTimeMillis()));
+            updated = recipeRepository.updateIfVersionMatches(recipe);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("An error occurred while updating recipe: Recipe with id " + recipe.getId() + " refers to a category that does not exist or misses a required field", e);
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while updating recipe: " + e.getMessage(), e);
+        }
+        if (updated == 0) {
+            if (!recipeRepository.existsById(recipe.getId())) {
+                throw new RecipeNotFoundException("An error occurred while updating recipe: Recipe with id " + recipe.getId() + " not found");
+            }
+            throw new RecipeVersionConflictException("An error occurred while updating recipe: Recipe with id " + recipe.getId() + " was modified by another request");
+        }
+        recipe.setVersion(recipe.getVersion() + 1);
+        if (recipe.getIngredients() == null) {
+            recipeIndexer.reindexAfterCommit(recipe.getId());
+            return recipe;
+        }
+        ingredientDictionaryService.resolveIngredients(List.of(recipe));
         try {
-            return recipeRepository.save(recipe);
+            List<Long> ingredientIds = recipe.getIngredients().stream().map(IngredientEntity::getId).toList();
+            if (ingredientIds.isEmpty()) {
+                recipeRepository.deleteIngredientLinks(recipe.getId());
+            } else {
+                recipeRepository.deleteIngredientLinksExcept(recipe.getId(), ingredientIds);
+                recipeRepository.insertIngredientLinks(recipe.getId(), ingredientIds);
+            }
         } catch (Exception e) {
             throw new DatabaseConnectionException("An error occurred while updating recipe: " + e.getMessage(), e);
         }
+        recipeIndexer.indexAfterCommit(List.of(recipe));
+        return recipe;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.RECIPES_CACHE, key = "#id")
     public boolean deleteRecipe(Long id) {
         if (!recipeRepository.existsById(id)) {
             throw new RecipeNotFoundException("An error occurred while deleting recipe: Recipe with id " + id + " not found");
         }
         try {
             recipeRepository.deleteById(id);
+            recipeIndexer.removeAfterCommit(id);
             return true;
         } catch (Exception e) {
             throw new DatabaseConnectionException("An error occurred while deleting recipe with id: " + id + " " + e.getMessage(), e);
@@ -0,0 +1,22 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserProfileService {
+
+    public Optional<UserEntity> getUserProfile(Long id);
+
+    /**
+     * The known users among {@code ids}, keyed by id. Ids the users service does not know are left out.
+     */
+    public Map<Long, UserEntity> getUserProfiles(Collection<Long> ids);
+
+    /**
+     * Drops the cached profile, so the next lookup reads it again.
+     */
+    public void evictUserProfile(Long id);
+}
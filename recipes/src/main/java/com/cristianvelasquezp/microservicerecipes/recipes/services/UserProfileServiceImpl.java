@@ -0,0 +1,147 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.client.BatchingUserClient;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineStatsCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Near-cache of user profiles. Misses are read from the local user summaries first, which the
+ * users service's change events keep current; a deleted user is known there as well. Only users
+ * the summaries have never heard of are loaded from the users service, through
+ * {@link BatchingUserClient}, so misses from concurrent requests share one remote call. Unknown
+ * users are cached too, for a shorter time. An entry read after the refresh interval is served as
+ * is while a reload runs in the background, so hot ids never wait on the network again; if that
+ * reload fails, the cached profile is kept until it expires.
+ */
+@Service
+public class UserProfileServiceImpl implements UserProfileService {
+
+    static final String CACHE_NAME = "userProfiles";
+
+    private final AsyncLoadingCache<Long, Optional<UserEntity>> profiles;
+
+    @Autowired
+    public UserProfileServiceImpl(BatchingUserClient batchingUserClient, UserSummaryService userSummaryService, MeterRegistry meterRegistry,
+                                  @Value("${recipes.users.cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${recipes.users.cache.ttl:10m}") Duration ttl,
+                                  @Value("${recipes.users.cache.negative-ttl:1m}") Duration negativeTtl,
+                                  @Value("${recipes.users.cache.refresh-after:2m}") Duration refreshAfter) {
+        this(batchingUserClient, userSummaryService, meterRegistry, maximumSize, ttl, negativeTtl, refreshAfter, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    UserProfileServiceImpl(BatchingUserClient batchingUserClient, UserSummaryService userSummaryService, MeterRegistry meterRegistry, long maximumSize,
+                           Duration ttl, Duration negativeTtl, Duration refreshAfter, Ticker ticker, Executor executor) {
+        CaffeineStatsCounter stats = new CaffeineStatsCounter(meterRegistry, CACHE_NAME);
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ProfileExpiry(ttl, negativeTtl))
+                .refreshAfterWrite(refreshAfter)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats(() -> stats)
+                .buildAsync(new ProfileLoader(batchingUserClient, userSummaryService));
+        stats.registerSizeMetric(profiles.synchronous());
+    }
+
+    @Override
+    public Optional<UserEntity> getUserProfile(Long id) {
+        try {
+            return profiles.get(id).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public Map<Long, UserEntity> getUserProfiles(Collection<Long> ids) {
+        try {
+            Map<Long, UserEntity> users = new HashMap<>();
+            profiles.getAll(ids).join().forEach((id, user) -> user.ifPresent(found -> users.put(id, found)));
+            return users;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public void evictUserProfile(Long id) {
+        profiles.synchronous().invalidate(id);
+    }
+
+    private record ProfileLoader(BatchingUserClient batchingUserClient, UserSummaryService userSummaryService)
+            implements AsyncCacheLoader<Long, Optional<UserEntity>> {
+
+        @Override
+        public CompletableFuture<Optional<UserEntity>> asyncLoad(Long id, Executor executor) {
+            UserSummaryEntity summary = userSummaryService.getSummaries(List.of(id)).get(id);
+            return summary != null ? CompletableFuture.completedFuture(toUser(summary)) : batchingUserClient.getUserById(id);
+        }
+
+        @Override
+        public CompletableFuture<Map<Long, Optional<UserEntity>>> asyncLoadAll(Set<? extends Long> ids, Executor executor) {
+            Map<Long, UserSummaryEntity> summaries = userSummaryService.getSummaries(List.copyOf(ids));
+            Map<Long, CompletableFuture<Optional<UserEntity>>> users = new HashMap<>();
+            for (Long id : ids) {
+                UserSummaryEntity summary = summaries.get(id);
+                users.put(id, summary != null ? CompletableFuture.completedFuture(toUser(summary)) : batchingUserClient.getUserById(id));
+            }
+            return CompletableFuture.allOf(users.values().toArray(CompletableFuture[]::new)).thenApply(done -> {
+                Map<Long, Optional<UserEntity>> loaded = new HashMap<>();
+                users.forEach((id, user) -> loaded.put(id, user.join()));
+                return loaded;
+            });
+        }
+
+        private static Optional<UserEntity> toUser(UserSummaryEntity summary) {
+            if (summary.isDeleted()) {
+                return Optional.empty();
+            }
+            UserEntity user = new UserEntity();
+            user.setId(summary.getId());
+            user.setUsername(summary.getUsername());
+            user.setFirstName(summary.getFirstName());
+            user.setLastName(summary.getLastName());
+            return Optional.of(user);
+        }
+    }
+
+    private record ProfileExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<UserEntity>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<UserEntity> user, long currentTime) {
+            return (user.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<UserEntity> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<UserEntity> user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.models.UserRecipesModel;
+
+public interface UserRecipesService {
+
+    public UserRecipesModel getRecipesByUserId(Long userId);
+}
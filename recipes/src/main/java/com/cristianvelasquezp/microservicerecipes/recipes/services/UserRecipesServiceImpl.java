@@ -0,0 +1,65 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.UserRecipesModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans out to the users service and the database at the same time: the user lookup is forked onto
+ * a virtual thread while the recipes are queried on the calling thread, so the response takes as
+ * long as the slower of the two rather than their sum.
+ */
+@Service
+public class UserRecipesServiceImpl implements UserRecipesService {
+
+    private final UserProfileService userProfileService;
+
+    private final RecipeRepository recipeRepository;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public UserRecipesServiceImpl(UserProfileService userProfileService, RecipeRepository recipeRepository) {
+        this.userProfileService = userProfileService;
+        this.recipeRepository = recipeRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserRecipesModel getRecipesByUserId(Long userId) {
+        CompletableFuture<Optional<UserEntity>> user = CompletableFuture.supplyAsync(() -> userProfileService.getUserProfile(userId), executor);
+        List<RecipeEntity> recipes;
+        try {
+            recipes = recipeRepository.findByUserIdOrderByIdAsc(Math.toIntExact(userId));
+            recipes.forEach(recipe -> Hibernate.initialize(recipe.getIngredients()));
+        } catch (Exception e) {
+            user.cancel(false);
+            throw new DatabaseConnectionException("An error occurred while fetching recipes of user with id: " + userId + " " + e.getMessage(), e);
+        }
+        try {
+            return user.join()
+                    .map(found -> new UserRecipesModel(found, recipes))
+                    .orElseThrow(() -> new UserNotFoundException("User with id: " + userId + " not found"));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.events.UserChangedEvent;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface UserSummaryService {
+
+    /**
+     * Applies the event to the local copy unless a newer or equal version is already stored.
+     * Returns whether the copy changed.
+     */
+    public boolean apply(UserChangedEvent event);
+
+    /**
+     * The stored summaries among {@code ids}, tombstones of deleted users included, keyed by id.
+     */
+    public Map<Long, UserSummaryEntity> getSummaries(Collection<Long> ids);
+}
@@ -0,0 +1,66 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.events.UserChangedEvent;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.UserSummaryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Events can arrive twice or out of order, so each one is applied only if it is newer than the
+ * stored row. Deleted users become tombstones rather than being removed.
+ */
+@Service
+public class UserSummaryServiceImpl implements UserSummaryService {
+
+    private final UserSummaryRepository userSummaryRepository;
+
+    public UserSummaryServiceImpl(UserSummaryRepository userSummaryRepository) {
+        this.userSummaryRepository = userSummaryRepository;
+    }
+
+    @Override
+    @Transactional
+    public boolean apply(UserChangedEvent event) {
+        if (event.id() == null || event.version() == null) {
+            throw new IllegalArgumentException("A user event must have an id and a version");
+        }
+        UserSummaryEntity summary = userSummaryRepository.findById(event.id()).orElse(null);
+        if (summary != null && summary.getVersion() >= event.version()) {
+            return false;
+        }
+        if (summary == null) {
+            summary = new UserSummaryEntity();
+            summary.setId(event.id());
+        }
+        boolean deleted = event.type() == UserChangedEvent.Type.DELETED;
+        summary.setUsername(deleted ? null : event.username());
+        summary.setFirstName(deleted ? null : event.firstName());
+        summary.setLastName(deleted ? null : event.lastName());
+        summary.setVersion(event.version());
+        summary.setDeleted(deleted);
+        userSummaryRepository.save(summary);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, UserSummaryEntity> getSummaries(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return userSummaryRepository.findAllById(Set.copyOf(ids)).stream()
+                    .collect(Collectors.toMap(UserSummaryEntity::getId, Function.identity()));
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while fetching user summaries: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Looks users up one id at a time for its callers, but talks to the users service in batches.
+ * Lookups arriving within a short window are collected and sent as a single
+ * {@code GET /users?ids=...}; a batch that reaches the maximum size is sent right away. Concurrent
+ * lookups of the same id share one future.
+ */
+@Component
+public class BatchingUserClient {
+
+    private final UserFeignClient userFeignClient;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-batch-timer").daemon().factory());
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Map<Long, CompletableFuture<Optional<UserEntity>>> pending;
+
+    public BatchingUserClient(UserFeignClient userFeignClient,
+                              @Value("${recipes.users.batch.window:5ms}") Duration window,
+                              @Value("${recipes.users.batch.max-size:100}") int maxBatchSize) {
+        this.userFeignClient = userFeignClient;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Completes with the user, or empty if the users service does not know the id. Completes
+     * exceptionally if the batch request fails.
+     */
+    public CompletableFuture<Optional<UserEntity>> getUserById(Long id) {
+        Map<Long, CompletableFuture<Optional<UserEntity>>> full = null;
+        CompletableFuture<Optional<UserEntity>> user;
+        synchronized (this) {
+            if (pending == null) {
+                Map<Long, CompletableFuture<Optional<UserEntity>>> batch = new LinkedHashMap<>();
+                pending = batch;
+                scheduler.schedule(() -> dispatch(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            user = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return user;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<UserEntity>>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // Already sent because it filled up before the window closed.
+                return;
+            }
+            pending = null;
+        }
+        send(batch);
+    }
+
+    private void send(Map<Long, CompletableFuture<Optional<UserEntity>>> batch) {
+        executor.execute(() -> {
+            try {
+                Map<Long, UserEntity> users = userFeignClient.getUsersByIds(List.copyOf(batch.keySet())).stream()
+                        .collect(Collectors.toMap(UserEntity::getId, Function.identity(), (first, second) -> first));
+                batch.forEach((id, user) -> user.complete(Optional.ofNullable(users.get(id))));
+            } catch (Exception e) {
+                batch.values().forEach(user -> user.completeExceptionally(e));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+}
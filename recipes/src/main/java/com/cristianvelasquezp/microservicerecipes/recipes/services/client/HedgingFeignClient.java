@@ -0,0 +1,365 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hedges idempotent GETs against a slow instance: the request goes to the instance picked by the
+ * load balancer, and if no response has arrived after the hedge delay, a copy goes to a different
+ * instance of the same service, which the load balancer picks as well. Whichever response comes first is returned and the other one is
+ * closed when it arrives. The delay follows a percentile of recent primary latencies, never going
+ * below the configured minimum. Hedges are paid for from a budget that every request tops up by a
+ * fraction of a hedge, which caps the extra load at that fraction. Other methods, and GETs that
+ * cannot be hedged, go through the regular load-balanced client.
+ * <p>
+ * Both legs are sent as the load-balanced client sends a request: through the request
+ * transformers, and reported to the load balancer lifecycle processors, so a balancer that
+ * measures its instances sees the hedged requests as well.
+ */
+public class HedgingFeignClient implements Client, AutoCloseable {
+
+    static final String HEDGES_METRIC = "feign.client.hedges";
+
+    /**
+     * Times the load balancer is asked for the hedge's instance before giving up; it may pick the
+     * primary's instance again.
+     */
+    private static final int HEDGE_CHOICES = 3;
+
+    private final Client delegate;
+
+    private final Client loadBalanced;
+
+    private final LoadBalancerClient loadBalancerClient;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+
+    private final List<LoadBalancerFeignRequestTransformer> transformers;
+
+    private final String serviceId;
+
+    private final long minDelayNanos;
+
+    private final double percentile;
+
+    private final HedgeBudget budget;
+
+    private final LatencyWindow latencies = new LatencyWindow(256);
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param delegate   sends a request to the URL it already carries
+     * @param percentile the percentile of recent latencies to wait for before hedging, or 0 to
+     *                   always wait {@code minDelay}
+     * @param budget     hedges allowed per request, e.g. 0.1 for at most 10% extra requests
+     */
+    public HedgingFeignClient(Client delegate, Client loadBalanced, LoadBalancerClient loadBalancerClient,
+                              LoadBalancerClientFactory loadBalancerClientFactory, List<LoadBalancerFeignRequestTransformer> transformers,
+                              String serviceId, Duration minDelay, double percentile, double budget, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.loadBalanced = loadBalanced;
+        this.loadBalancerClient = loadBalancerClient;
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.transformers = transformers;
+        this.serviceId = serviceId;
+        this.minDelayNanos = minDelay.toNanos();
+        this.percentile = percentile;
+        this.budget = new HedgeBudget(budget, 10);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            return loadBalanced.execute(request, options);
+        }
+        Set<LoadBalancerLifecycle> lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                loadBalancerClientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+        RequestData requestData = requestData(request);
+        DefaultRequest<RequestDataContext> primaryRequest = new DefaultRequest<>(new RequestDataContext(requestData));
+        lifecycles.forEach(lifecycle -> lifecycle.onStart(primaryRequest));
+        ServiceInstance primaryInstance = loadBalancerClient.choose(serviceId, primaryRequest);
+        if (primaryInstance == null) {
+            lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                    new CompletionContext<>(CompletionContext.Status.DISCARD, primaryRequest, new EmptyResponse())));
+            return loadBalanced.execute(request, options);
+        }
+        budget.deposit();
+        long start = System.nanoTime();
+        CompletableFuture<Response> primary = send(request, requestData, primaryRequest, primaryInstance, lifecycles, options);
+        primary.thenRun(() -> latencies.record(System.nanoTime() - start));
+        try {
+            return primary.get(hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // No response yet: hedge below.
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.thenAccept(Response::close);
+            throw new IOException("Interrupted while waiting for " + serviceId, e);
+        }
+
+        DefaultRequest<RequestDataContext> hedgeRequest = new DefaultRequest<>(new RequestDataContext(requestData));
+        ServiceInstance hedgeInstance = otherInstance(primaryInstance, hedgeRequest);
+        if (hedgeInstance == null) {
+            count("no_alternate");
+            return await(primary);
+        }
+        if (!budget.tryWithdraw()) {
+            count("over_budget");
+            return await(primary);
+        }
+        count("sent");
+        lifecycles.forEach(lifecycle -> lifecycle.onStart(hedgeRequest));
+        CompletableFuture<Response> hedge = send(request, requestData, hedgeRequest, hedgeInstance, lifecycles, options);
+        Response response = await(firstResponse(primary, hedge));
+        if (hedge.isDone() && !hedge.isCompletedExceptionally() && hedge.join() == response) {
+            count("won");
+        }
+        return response;
+    }
+
+    /**
+     * Sends one leg to {@code instance} and reports it to the lifecycle processors, as
+     * {@code FeignBlockingLoadBalancerClient} does for the requests it sends.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Response> send(Request request, RequestData requestData, DefaultRequest<RequestDataContext> lbRequest,
+                                             ServiceInstance instance, Set<LoadBalancerLifecycle> lifecycles, Request.Options options) {
+        DefaultResponse lbResponse = new DefaultResponse(instance);
+        String url = loadBalancerClient.reconstructURI(instance, URI.create(request.url())).toString();
+        Request target = Request.create(request.httpMethod(), url, request.headers(), request.body(), request.charset(), request.requestTemplate());
+        for (LoadBalancerFeignRequestTransformer transformer : transformers) {
+            target = transformer.transformRequest(target, instance);
+        }
+        Request transformed = target;
+        lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(lbRequest, lbResponse));
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Response response = delegate.execute(transformed, options);
+                lifecycles.forEach(lifecycle -> lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS,
+                        lbRequest, lbResponse, responseData(response, requestData))));
+                return response;
+            } catch (IOException e) {
+                failed(lifecycles, lbRequest, lbResponse, e);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                failed(lifecycles, lbRequest, lbResponse, e);
+                throw e;
+            }
+        }, executor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void failed(Set<LoadBalancerLifecycle> lifecycles, DefaultRequest<RequestDataContext> lbRequest,
+                               DefaultResponse lbResponse, Exception failure) {
+        lifecycles.forEach(lifecycle -> lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                failure, lbRequest, lbResponse)));
+    }
+
+    private static RequestData requestData(Request request) {
+        HttpHeaders headers = new HttpHeaders();
+        request.headers().forEach((name, values) -> headers.put(name, List.copyOf(values)));
+        return new RequestData(HttpMethod.valueOf(request.httpMethod().name()), URI.create(request.url()), headers, null, new HashMap<>());
+    }
+
+    private static ResponseData responseData(Response response, RequestData requestData) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().forEach((name, values) -> headers.put(name, List.copyOf(values)));
+        return new ResponseData(HttpStatusCode.valueOf(response.status()), headers, null, requestData);
+    }
+
+    private long hedgeDelayNanos() {
+        return percentile > 0 ? Math.max(minDelayNanos, latencies.percentile(percentile)) : minDelayNanos;
+    }
+
+    /**
+     * Asks the load balancer for an instance other than the primary's. A balancer that measures its
+     * instances already counts the primary request in flight against that instance, so it rarely
+     * picks it again; the lifecycle processors only hear of the hedge once it is sent.
+     */
+    private ServiceInstance otherInstance(ServiceInstance primary, DefaultRequest<RequestDataContext> hedgeRequest) {
+        for (int choice = 0; choice < HEDGE_CHOICES; choice++) {
+            ServiceInstance instance = loadBalancerClient.choose(serviceId, hedgeRequest);
+            if (instance == null) {
+                return null;
+            }
+            if (!(instance.getHost().equals(primary.getHost()) && instance.getPort() == primary.getPort())) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Completes with the first successful response, or with a failure once both legs have failed.
+     * A response that arrives after the winner is closed so its connection goes back to the pool.
+     */
+    private static CompletableFuture<Response> firstResponse(CompletableFuture<Response> primary, CompletableFuture<Response> hedge) {
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<Response> leg : List.of(primary, hedge)) {
+            leg.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    if (!first.complete(response)) {
+                        response.close();
+                    }
+                } else if (failed.incrementAndGet() == 2) {
+                    first.completeExceptionally(failure);
+                }
+            });
+        }
+        return first;
+    }
+
+    private static Response await(CompletableFuture<Response> response) throws IOException {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.thenAccept(Response::close);
+            throw new IOException("Interrupted while waiting for a response", e);
+        }
+    }
+
+    private static IOException rethrow(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter(HEDGES_METRIC, "client", serviceId, "outcome", outcome).increment();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Token bucket: each request adds {@code ratio} tokens, up to {@code maxTokens}, and each hedge
+     * takes one. Over time at most {@code ratio} hedges are sent per request, with short bursts
+     * allowed by the cap.
+     */
+    static final class HedgeBudget {
+
+        private final double ratio;
+
+        private final double maxTokens;
+
+        private double tokens;
+
+        HedgeBudget(double ratio, double maxTokens) {
+            this.ratio = ratio;
+            this.maxTokens = maxTokens;
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(maxTokens, tokens + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * The last {@code size} latencies in a ring buffer. Percentiles are read from a sorted copy,
+     * which is refreshed on every sixteenth sample once the window holds sixteen or more.
+     */
+    static final class LatencyWindow {
+
+        private final long[] samples;
+
+        private int count;
+
+        private int next;
+
+        private long[] sorted = new long[0];
+
+        private int sinceSort;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            sinceSort++;
+        }
+
+        /**
+         * @return the given percentile (0-100) of the recorded latencies, or 0 if none
+         */
+        synchronized long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            if (sinceSort > 0 && (sinceSort >= 16 || sorted.length < 16)) {
+                sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                sinceSort = 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.clamp(index, 0, sorted.length - 1)];
+        }
+    }
+}
@@ -5,12 +5,24 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
-@FeignClient("users")
+@FeignClient(name = "users", fallbackFactory = UserFeignClientFallbackFactory.class,
+        configuration = UserFeignClientConfiguration.class)
 public interface UserFeignClient {
 
-    @GetMapping(value = "/users/{id}", consumes = "application/json")
+    /**
+     * Users are read as CBOR, which is smaller and cheaper to parse than JSON; a users instance
+     * that cannot produce it still answers with JSON.
+     */
+    String ACCEPT_CBOR = "Accept=application/cbor, application/json;q=0.9";
+
+    @GetMapping(value = "/users/{id}", consumes = "application/json", headers = ACCEPT_CBOR)
     public ResponseEntity<UserEntity> getUserById(@PathVariable String id);
+
+    @GetMapping(value = "/users", consumes = "application/json", headers = ACCEPT_CBOR)
+    public List<UserEntity> getUsersByIds(@RequestParam("ids") Collection<Long> ids);
 }
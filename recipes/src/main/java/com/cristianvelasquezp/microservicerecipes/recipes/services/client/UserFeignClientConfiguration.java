@@ -0,0 +1,41 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+
+/**
+ * Feign configuration of the users client only; deliberately not a {@code @Configuration}, so it
+ * is not picked up by component scanning and applied to every client. Beans here live in the
+ * client's own context, which has no Boot conversion service, so durations are parsed by hand.
+ */
+public class UserFeignClientConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "recipes.users.hedging.enabled", havingValue = "true")
+    public Client hedgingFeignClient(HttpClient httpClient5, LoadBalancerClient loadBalancerClient,
+                                     LoadBalancerClientFactory loadBalancerClientFactory,
+                                     ObjectProvider<LoadBalancerFeignRequestTransformer> transformers,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${recipes.users.hedging.min-delay:20ms}") String minDelay,
+                                     @Value("${recipes.users.hedging.percentile:95}") double percentile,
+                                     @Value("${recipes.users.hedging.budget:0.1}") double budget) {
+        Client pooled = new ApacheHttp5Client(httpClient5);
+        List<LoadBalancerFeignRequestTransformer> orderedTransformers = transformers.orderedStream().toList();
+        Client loadBalanced = new FeignBlockingLoadBalancerClient(pooled, loadBalancerClient, loadBalancerClientFactory, orderedTransformers);
+        return new HedgingFeignClient(pooled, loadBalanced, loadBalancerClient, loadBalancerClientFactory, orderedTransformers,
+                "users", DurationStyle.detectAndParse(minDelay), percentile, budget, meterRegistry);
+    }
+}
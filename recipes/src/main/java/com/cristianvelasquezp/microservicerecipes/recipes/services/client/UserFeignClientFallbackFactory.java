@@ -0,0 +1,65 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserServiceUnavailableException;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs when a call to the users service fails or is not even attempted because its circuit is
+ * open or its bulkhead is full. Client errors, such as a 404 for an unknown user, are the caller's
+ * answer and are passed through untouched; anything else becomes a
+ * {@link UserServiceUnavailableException} and is counted per method and reason.
+ */
+@Component
+public class UserFeignClientFallbackFactory implements FallbackFactory<UserFeignClient> {
+
+    static final String FALLBACKS_METRIC = "users.client.fallbacks";
+
+    private final MeterRegistry meterRegistry;
+
+    public UserFeignClientFallbackFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public UserFeignClient create(Throwable cause) {
+        return new UserFeignClient() {
+            @Override
+            public ResponseEntity<UserEntity> getUserById(String id) {
+                throw unavailable("getUserById", cause);
+            }
+
+            @Override
+            public List<UserEntity> getUsersByIds(Collection<Long> ids) {
+                throw unavailable("getUsersByIds", cause);
+            }
+        };
+    }
+
+    private RuntimeException unavailable(String method, Throwable cause) {
+        if (cause instanceof FeignException.FeignClientException clientError) {
+            return clientError;
+        }
+        meterRegistry.counter(FALLBACKS_METRIC, "method", method, "reason", reason(cause)).increment();
+        return new UserServiceUnavailableException("The users service is unavailable: " + cause.getMessage(), cause);
+    }
+
+    private static String reason(Throwable cause) {
+        if (cause instanceof CallNotPermittedException) {
+            return "circuit_open";
+        }
+        if (cause instanceof BulkheadFullException) {
+            return "bulkhead_full";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,181 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers "which recipes can I cook with these ingredients" from compressed bitmaps: one bitmap of
+ * recipe ids per ingredient, plus one per recipe size (number of distinct ingredients). A query
+ * counts, with bitmap operations only, how many of the given ingredients every recipe uses, then
+ * intersects each count with the sizes it covers well enough. No recipe is visited individually until the
+ * results are read out, best coverage first.
+ */
+@Component
+public class IngredientCoverageIndex implements RecipeIndex {
+
+    public record Match(long recipeId, int matchedIngredients, int totalIngredients) {
+
+        public double coverage() {
+            return (double) matchedIngredients / totalIngredients;
+        }
+    }
+
+    private final Map<Long, RoaringBitmap> recipesByIngredient = new HashMap<>();
+
+    private final TreeMap<Integer, RoaringBitmap> recipesBySize = new TreeMap<>();
+
+    private final Map<Integer, long[]> ingredientsByRecipe = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void index(RecipeEntity recipe) {
+        int recipeId = Math.toIntExact(recipe.getId());
+        long[] ingredientIds = recipe.getIngredients() == null ? new long[0] : recipe.getIngredients().stream()
+                .map(IngredientEntity::getId)
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .toArray();
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+            if (ingredientIds.length == 0) {
+                return;
+            }
+            for (long ingredientId : ingredientIds) {
+                recipesByIngredient.computeIfAbsent(ingredientId, key -> new RoaringBitmap()).add(recipeId);
+            }
+            recipesBySize.computeIfAbsent(ingredientIds.length, key -> new RoaringBitmap()).add(recipeId);
+            ingredientsByRecipe.put(recipeId, ingredientIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(Math.toIntExact(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int recipeId) {
+        long[] ingredientIds = ingredientsByRecipe.remove(recipeId);
+        if (ingredientIds == null) {
+            return;
+        }
+        for (long ingredientId : ingredientIds) {
+            RoaringBitmap recipes = recipesByIngredient.get(ingredientId);
+            recipes.remove(recipeId);
+            if (recipes.isEmpty()) {
+                recipesByIngredient.remove(ingredientId);
+            }
+        }
+        RoaringBitmap sized = recipesBySize.get(ingredientIds.length);
+        sized.remove(recipeId);
+        if (sized.isEmpty()) {
+            recipesBySize.remove(ingredientIds.length);
+        }
+    }
+
+    /**
+     * The recipes whose share of ingredients found in {@code ingredientIds} is at least
+     * {@code minCoverage}, highest coverage first, then most matched ingredients, then id.
+     */
+    public List<Match> match(Collection<Long> ingredientIds, double minCoverage, int limit) {
+        Set<Long> available = new LinkedHashSet<>(ingredientIds);
+        lock.readLock().lock();
+        try {
+            // Bit-sliced counters: slices[k] holds the recipes whose matched-ingredient count has
+            // bit k set. Adding an ingredient is a binary increment, carried with AND and XOR.
+            List<RoaringBitmap> slices = new ArrayList<>();
+            RoaringBitmap matchedAny = new RoaringBitmap();
+            int maxMatched = 0;
+            for (Long ingredientId : available) {
+                RoaringBitmap recipes = recipesByIngredient.get(ingredientId);
+                if (recipes == null) {
+                    continue;
+                }
+                maxMatched++;
+                matchedAny.or(recipes);
+                RoaringBitmap carry = recipes;
+                for (int k = 0; !carry.isEmpty(); k++) {
+                    if (k == slices.size()) {
+                        slices.add(carry.clone());
+                        break;
+                    }
+                    RoaringBitmap next = RoaringBitmap.and(slices.get(k), carry);
+                    slices.get(k).xor(carry);
+                    carry = next;
+                }
+            }
+
+            List<Match> matches = new ArrayList<>();
+            Map<Integer, RoaringBitmap> exactly = new HashMap<>();
+            for (Bucket bucket : buckets(maxMatched, minCoverage)) {
+                RoaringBitmap withCount = exactly.computeIfAbsent(bucket.matched(), count -> exactCount(matchedAny, slices, count));
+                IntIterator recipeIds = RoaringBitmap.and(withCount, bucket.recipes()).getIntIterator();
+                while (recipeIds.hasNext() && matches.size() < limit) {
+                    matches.add(new Match(recipeIds.next(), bucket.matched(), bucket.total()));
+                }
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RoaringBitmap exactCount(RoaringBitmap matchedAny, List<RoaringBitmap> slices, int count) {
+        RoaringBitmap recipes = matchedAny.clone();
+        for (int k = 0; k < slices.size() && !recipes.isEmpty(); k++) {
+            if ((count >> k & 1) == 1) {
+                recipes.and(slices.get(k));
+            } else {
+                recipes.andNot(slices.get(k));
+            }
+        }
+        return recipes;
+    }
+
+    private record Bucket(int matched, int total, RoaringBitmap recipes) {
+    }
+
+    /**
+     * Every (matched count, recipe size) combination that meets {@code minCoverage}, best coverage
+     * first. Each bucket carries the bitmap of the recipes of that size.
+     */
+    private List<Bucket> buckets(int maxMatched, double minCoverage) {
+        List<Bucket> buckets = new ArrayList<>();
+        for (int i = 1; i <= maxMatched; i++) {
+            int matched = i;
+            int maxTotal = (int) Math.floor(matched / minCoverage + 1e-9);
+            recipesBySize.subMap(matched, true, maxTotal, true)
+                    .forEach((total, recipes) -> buckets.add(new Bucket(matched, total, recipes)));
+        }
+        buckets.sort(Comparator.comparingDouble((Bucket bucket) -> (double) bucket.matched() / bucket.total()).reversed()
+                .thenComparing(Comparator.comparingInt(Bucket::matched).reversed()));
+        return buckets;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+
+/**
+ * An in-memory index over the recipe catalog. Implementations are fed by {@link RecipeIndexer},
+ * which builds them from the database at startup and keeps them current as recipes are written.
+ */
+public interface RecipeIndex {
+
+    /**
+     * Adds the recipe, replacing any previous version of it. The ingredients must be initialized.
+     */
+    public void index(RecipeEntity recipe);
+
+    public void remove(Long recipeId);
+}
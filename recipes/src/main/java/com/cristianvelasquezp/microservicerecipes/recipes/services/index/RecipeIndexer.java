@@ -0,0 +1,128 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Keeps every {@link RecipeIndex} in step with the database. At startup the catalog is paged into
+ * the indexes on a background thread; writes are applied once their transaction commits. A recipe
+ * written while the initial build is running is marked, so the build never overwrites it with the
+ * older copy it read from its page.
+ */
+@Component
+public class RecipeIndexer {
+
+    static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final List<RecipeIndex> indexes;
+
+    private final RecipeRepository recipeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> writtenDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+
+    public RecipeIndexer(List<RecipeIndex> indexes, RecipeRepository recipeRepository, PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.recipeRepository = recipeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Reloads after a commit must not join the transaction that has just completed.
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread.ofVirtual().name("recipe-indexer").start(this::rebuild);
+    }
+
+    public void rebuild() {
+        rebuilding = true;
+        long started = System.nanoTime();
+        long indexed = 0;
+        try {
+            long cursor = 0L;
+            List<RecipeEntity> page;
+            do {
+                long after = cursor;
+                page = transactionTemplate.execute(status -> {
+                    List<RecipeEntity> recipes = recipeRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(REBUILD_PAGE_SIZE));
+                    recipes.forEach(recipe -> Hibernate.initialize(recipe.getIngredients()));
+                    return recipes;
+                });
+                for (RecipeEntity recipe : page) {
+                    synchronized (this) {
+                        if (!writtenDuringRebuild.contains(recipe.getId())) {
+                            indexes.forEach(index -> index.index(recipe));
+                        }
+                    }
+                    cursor = recipe.getId();
+                }
+                indexed += page.size();
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            Logger.getGlobal().info("Indexed " + indexed + " recipes in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            Logger.getGlobal().severe("An error occurred while indexing recipes: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                writtenDuringRebuild.clear();
+            }
+        }
+    }
+
+    public void indexAfterCommit(List<RecipeEntity> recipes) {
+        afterCommit(() -> recipes.forEach(recipe -> apply(recipe.getId(), index -> index.index(recipe))));
+    }
+
+    /**
+     * Reloads the recipe once the transaction commits and indexes the stored copy; for writes whose
+     * payload does not carry everything the indexes need.
+     */
+    public void reindexAfterCommit(Long recipeId) {
+        afterCommit(() -> transactionTemplate.executeWithoutResult(status ->
+                recipeRepository.findById(recipeId).ifPresent(recipe -> apply(recipeId, index -> index.index(recipe)))));
+    }
+
+    public void removeAfterCommit(Long recipeId) {
+        afterCommit(() -> apply(recipeId, index -> index.remove(recipeId)));
+    }
+
+    private synchronized void apply(Long recipeId, Consumer<RecipeIndex> change) {
+        if (rebuilding) {
+            writtenDuringRebuild.add(recipeId);
+        }
+        indexes.forEach(change);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,298 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over recipe names, descriptions, directions and ingredient values. Each term maps
+ * to the recipes containing it and a field-weighted term frequency; a query only visits the
+ * postings of its own terms, so its cost depends on how common those terms are, not on the size of
+ * the catalog. Results are ranked by tf-idf, scaled by the share of query terms a recipe matches.
+ * Postings are primitive arrays sorted by recipe id, so a query walks them side by side, one
+ * recipe at a time, and keeps only the best {@code limit} in a bounded heap.
+ */
+@Component
+public class RecipeSearchIndex implements RecipeIndex {
+
+    static final float NAME_WEIGHT = 3f;
+
+    static final float INGREDIENT_WEIGHT = 2f;
+
+    static final float TEXT_WEIGHT = 1f;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "the", "then", "to", "until", "with");
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public void index(RecipeEntity recipe) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addTerms(frequencies, recipe.getName(), NAME_WEIGHT);
+        addTerms(frequencies, recipe.getDescription(), TEXT_WEIGHT);
+        addTerms(frequencies, recipe.getDirections(), TEXT_WEIGHT);
+        if (recipe.getIngredients() != null) {
+            for (IngredientEntity ingredient : recipe.getIngredients()) {
+                addTerms(frequencies, ingredient.getValue(), INGREDIENT_WEIGHT);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipe.getId());
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new Postings()).put(recipe.getId(), frequency));
+            documentTerms.put(recipe.getId(), frequencies.keySet().toArray(String[]::new));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long recipeId) {
+        String[] terms = documentTerms.remove(recipeId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings recipes = postings.get(term);
+            recipes.remove(recipeId);
+            if (recipes.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The ids of the best matching recipes, best first. Recipes matching any query term qualify.
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            double documents = Math.max(1, documentTerms.size());
+            List<Postings> matching = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings recipes = postings.get(term);
+                if (recipes != null) {
+                    matching.add(recipes);
+                }
+            }
+            Postings[] lists = matching.toArray(Postings[]::new);
+            double[] idf = new double[lists.length];
+            int[] cursors = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + documents / lists[i].size);
+            }
+
+            TopRecipes best = new TopRecipes(Math.min(limit, documentTerms.size()));
+            while (true) {
+                long recipeId = Long.MAX_VALUE;
+                for (int i = 0; i < lists.length; i++) {
+                    if (cursors[i] < lists[i].size) {
+                        recipeId = Math.min(recipeId, lists[i].recipeIds[cursors[i]]);
+                    }
+                }
+                if (recipeId == Long.MAX_VALUE) {
+                    break;
+                }
+                double score = 0;
+                int matched = 0;
+                for (int i = 0; i < lists.length; i++) {
+                    if (cursors[i] < lists[i].size && lists[i].recipeIds[cursors[i]] == recipeId) {
+                        score += (1 + Math.log(lists[i].frequencies[cursors[i]])) * idf[i];
+                        matched++;
+                        cursors[i]++;
+                    }
+                }
+                best.offer(recipeId, score * matched / terms.size());
+            }
+            return best.bestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addTerms(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+
+    /**
+     * The recipes containing a term and their frequencies, sorted by recipe id. Recipes are indexed
+     * in id order when the index is rebuilt, so adding one is usually an append.
+     */
+    private static final class Postings {
+
+        long[] recipeIds = new long[4];
+
+        float[] frequencies = new float[4];
+
+        int size;
+
+        void put(long recipeId, float frequency) {
+            int position = size == 0 || recipeIds[size - 1] < recipeId ? -size - 1 : Arrays.binarySearch(recipeIds, 0, size, recipeId);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            if (size == recipeIds.length) {
+                recipeIds = Arrays.copyOf(recipeIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(recipeIds, position, recipeIds, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            recipeIds[position] = recipeId;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        void remove(long recipeId) {
+            int position = Arrays.binarySearch(recipeIds, 0, size, recipeId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(recipeIds, position + 1, recipeIds, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+        }
+    }
+
+    /**
+     * The {@code limit} best scored recipes seen so far: a min-heap on parallel arrays whose root is
+     * the worst of them, by lower score, then higher id.
+     */
+    private static final class TopRecipes {
+
+        private final long[] recipeIds;
+
+        private final double[] scores;
+
+        private int size;
+
+        TopRecipes(int limit) {
+            recipeIds = new long[limit];
+            scores = new double[limit];
+        }
+
+        void offer(long recipeId, double score) {
+            if (size < recipeIds.length) {
+                recipeIds[size] = recipeId;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(recipeIds[0], scores[0], recipeId, score)) {
+                recipeIds[0] = recipeId;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Long> bestFirst() {
+            Long[] ids = new Long[size];
+            while (size > 0) {
+                ids[size - 1] = recipeIds[0];
+                swap(0, --size);
+                siftDown(0);
+            }
+            return Arrays.asList(ids);
+        }
+
+        private static boolean worse(long recipeId, double score, long otherId, double otherScore) {
+            return score < otherScore || score == otherScore && recipeId > otherId;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(recipeIds[index], scores[index], recipeIds[parent], scores[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(recipeIds[child], scores[child], recipeIds[worst], scores[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long recipeId = recipeIds[i];
+            recipeIds[i] = recipeIds[j];
+            recipeIds[j] = recipeId;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
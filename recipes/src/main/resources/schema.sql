@@ -3,26 +3,45 @@ CREATE TABLE categories (
     name VARCHAR(255) NOT NULL
 );
 
+-- recipes and ingredients ids are allocated by Hibernate's pooled optimizer (allocationSize = 50),
+-- so the sequences must step by the same amount.
+CREATE SEQUENCE ingredients_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE ingredients (
-    id SERIAL PRIMARY KEY,
-    value VARCHAR(255) NOT NULL
+    id INTEGER PRIMARY KEY DEFAULT nextval('ingredients_id_seq'),
+    value VARCHAR(255) NOT NULL UNIQUE
 );
 
+CREATE SEQUENCE recipes_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE recipes (
-    id SERIAL PRIMARY KEY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('recipes_id_seq'),
     name VARCHAR(255) NOT NULL,
     description TEXT,
     category_id INTEGER NOT NULL,
     date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     directions TEXT,
     user_id INTEGER NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE CASCADE
 );
 
+CREATE INDEX recipes_user_id_idx ON recipes (user_id);
+
 CREATE TABLE recipe_ingredients (
     recipe_id INTEGER NOT NULL,
     ingredient_id INTEGER NOT NULL,
     PRIMARY KEY (recipe_id, ingredient_id),
     FOREIGN KEY (recipe_id) REFERENCES recipes(id) ON DELETE CASCADE,
     FOREIGN KEY (ingredient_id) REFERENCES ingredients(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- copy of the users service's users, fed by its change events; deleted users are kept as tombstones
+CREATE TABLE user_summaries (
+    id BIGINT PRIMARY KEY,
+    username VARCHAR(255),
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    version BIGINT NOT NULL,
+    deleted BOOLEAN NOT NULL
+);
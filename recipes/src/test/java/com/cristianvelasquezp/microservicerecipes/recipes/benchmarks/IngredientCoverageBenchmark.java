@@ -0,0 +1,144 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.benchmarks;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.IngredientCoverageIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the ingredient coverage query on {@link IngredientCoverageIndex} with the same query in
+ * SQL against an in-memory H2 copy of {@code recipe_ingredients}. Ingredient popularity is skewed,
+ * as in real recipe data. Not part of the test run; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngredientCoverageBenchmark {
+
+    private static final String COVERAGE_QUERY = """
+            SELECT recipe_id, matched, total FROM (
+                SELECT ri.recipe_id, COUNT(*) AS matched,
+                       (SELECT COUNT(*) FROM recipe_ingredients a WHERE a.recipe_id = ri.recipe_id) AS total
+                FROM recipe_ingredients ri
+                WHERE ri.ingredient_id IN (%s)
+                GROUP BY ri.recipe_id
+            ) candidates
+            WHERE matched >= ? * total
+            ORDER BY matched * 1.0 / total DESC, matched DESC, recipe_id
+            LIMIT ?
+            """;
+
+    @Param({"100000"})
+    int recipes;
+
+    @Param({"2000"})
+    int ingredients;
+
+    @Param({"30"})
+    int available;
+
+    @Param({"0.8"})
+    double minCoverage;
+
+    private static final int LIMIT = 20;
+
+    private IngredientCoverageIndex index;
+
+    private Connection connection;
+
+    private PreparedStatement coverageQuery;
+
+    private List<Long> availableIngredients;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        index = new IngredientCoverageIndex();
+        connection = DriverManager.getConnection("jdbc:h2:mem:coverage;MODE=PostgreSQL;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE recipe_ingredients (recipe_id INTEGER NOT NULL, ingredient_id INTEGER NOT NULL, PRIMARY KEY (recipe_id, ingredient_id))");
+            statement.execute("CREATE INDEX recipe_ingredients_ingredient_id ON recipe_ingredients (ingredient_id)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO recipe_ingredients (recipe_id, ingredient_id) VALUES (?, ?)")) {
+            for (long recipeId = 1; recipeId <= recipes; recipeId++) {
+                Set<Long> recipeIngredients = new LinkedHashSet<>();
+                int size = 3 + random.nextInt(10);
+                while (recipeIngredients.size() < size) {
+                    recipeIngredients.add(skewedIngredient(random));
+                }
+                RecipeEntity recipe = new RecipeEntity();
+                recipe.setId(recipeId);
+                recipe.setIngredients(recipeIngredients.stream().map(id -> new IngredientEntity(id, null)).toList());
+                index.index(recipe);
+                for (Long ingredientId : recipeIngredients) {
+                    insert.setLong(1, recipeId);
+                    insert.setLong(2, ingredientId);
+                    insert.addBatch();
+                }
+                if (recipeId % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        Set<Long> pantry = new LinkedHashSet<>();
+        while (pantry.size() < available) {
+            pantry.add(skewedIngredient(random));
+        }
+        availableIngredients = new ArrayList<>(pantry);
+        String placeholders = availableIngredients.stream().map(String::valueOf).collect(Collectors.joining(","));
+        coverageQuery = connection.prepareStatement(COVERAGE_QUERY.formatted(placeholders));
+        coverageQuery.setDouble(1, minCoverage);
+        coverageQuery.setInt(2, LIMIT);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private long skewedIngredient(Random random) {
+        double uniform = random.nextDouble();
+        return 1 + (long) (uniform * uniform * uniform * ingredients);
+    }
+
+    @Benchmark
+    public void bitmapIndex(Blackhole blackhole) {
+        blackhole.consume(index.match(availableIngredients, minCoverage, LIMIT));
+    }
+
+    @Benchmark
+    public void sqlQuery(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = coverageQuery.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IngredientCoverageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
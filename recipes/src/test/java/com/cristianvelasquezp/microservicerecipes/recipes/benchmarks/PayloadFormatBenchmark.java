@@ -0,0 +1,131 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.benchmarks;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.CategoryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON with CBOR for the bodies that cross the wire most: a page of recipes, as served by
+ * {@code GET /recipes}, and a batch of users, as read by {@code UserFeignClient}. Measures encode
+ * and decode time; {@link #main} also prints the payload size of each format. Not part of the test
+ * run; start it with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    private static final TypeReference<List<RecipeEntity>> RECIPES = new TypeReference<>() {};
+
+    private static final TypeReference<List<UserEntity>> USERS = new TypeReference<>() {};
+
+    @Param({"json", "cbor"})
+    String format;
+
+    @Param({"50"})
+    int size;
+
+    private ObjectMapper mapper;
+
+    private List<RecipeEntity> recipes;
+
+    private List<UserEntity> users;
+
+    private byte[] encodedRecipes;
+
+    private byte[] encodedUsers;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        recipes = recipes(size);
+        users = users(size);
+        encodedRecipes = mapper.writeValueAsBytes(recipes);
+        encodedUsers = mapper.writeValueAsBytes(users);
+    }
+
+    private static ObjectMapper mapper(String format) {
+        return switch (format) {
+            case "json" -> JsonMapper.builder().findAndAddModules().build();
+            case "cbor" -> CBORMapper.builder().findAndAddModules().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    private static List<RecipeEntity> recipes(int size) {
+        Random random = new Random(42);
+        List<RecipeEntity> recipes = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            List<IngredientEntity> ingredients = new ArrayList<>();
+            for (int j = 0; j < 5 + random.nextInt(10); j++) {
+                long id = 1 + random.nextInt(2000);
+                ingredients.add(new IngredientEntity(id, "Ingredient " + id));
+            }
+            RecipeEntity recipe = new RecipeEntity((long) i, "Recipe " + i, "A short description of recipe " + i,
+                    new CategoryEntity((long) random.nextInt(20), "Category"), new Timestamp(1_700_000_000_000L + i),
+                    "Step one. Step two. Step three. ".repeat(1 + random.nextInt(10)), ingredients);
+            recipe.setUserId(random.nextInt(10_000));
+            recipe.setVersion((long) random.nextInt(5));
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    private static List<UserEntity> users(int size) {
+        List<UserEntity> users = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            users.add(new UserEntity(i, "user" + i, "user" + i + "@example.com", null, "First" + i, "Last" + i,
+                    new Timestamp(1_700_000_000_000L), new Timestamp(1_700_000_000_000L + i), "ACTIVE"));
+        }
+        return users;
+    }
+
+    @Benchmark
+    public byte[] encodeRecipes() throws IOException {
+        return mapper.writeValueAsBytes(recipes);
+    }
+
+    @Benchmark
+    public List<RecipeEntity> decodeRecipes() throws IOException {
+        return mapper.readValue(encodedRecipes, RECIPES);
+    }
+
+    @Benchmark
+    public byte[] encodeUsers() throws IOException {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<UserEntity> decodeUsers() throws IOException {
+        return mapper.readValue(encodedUsers, USERS);
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int size = 50;
+        for (String format : List.of("json", "cbor")) {
+            ObjectMapper mapper = mapper(format);
+            System.out.printf("%s: %d recipes = %d bytes, %d users = %d bytes%n", format,
+                    size, mapper.writeValueAsBytes(recipes(size)).length, size, mapper.writeValueAsBytes(users(size)).length);
+        }
+        new Runner(new OptionsBuilder().include(PayloadFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
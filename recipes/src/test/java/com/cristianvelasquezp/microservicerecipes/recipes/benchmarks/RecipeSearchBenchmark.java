@@ -0,0 +1,97 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.benchmarks;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text queries on {@link RecipeSearchIndex} over a catalog of a million recipes. Word
+ * popularity is skewed, as in real recipe data: the common query walks postings covering a large
+ * share of the catalog, the rare one only a few hundred recipes. Not part of the test run; start it
+ * with {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecipeSearchBenchmark {
+
+    @Param({"1000000"})
+    int recipes;
+
+    @Param({"5000"})
+    int words;
+
+    private static final int LIMIT = 20;
+
+    private RecipeSearchIndex index;
+
+    private String commonQuery;
+
+    private String rareQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new RecipeSearchIndex();
+        for (long recipeId = 1; recipeId <= recipes; recipeId++) {
+            RecipeEntity recipe = new RecipeEntity();
+            recipe.setId(recipeId);
+            recipe.setName(text(random, 3));
+            recipe.setDescription(text(random, 12));
+            recipe.setDirections(text(random, 30));
+            List<IngredientEntity> ingredients = new ArrayList<>();
+            for (int i = 3 + random.nextInt(10); i > 0; i--) {
+                ingredients.add(new IngredientEntity(null, word(skewedWord(random))));
+            }
+            recipe.setIngredients(ingredients);
+            index.index(recipe);
+        }
+        commonQuery = word(0) + " " + word(1) + " " + word(2);
+        rareQuery = word(words - 3) + " " + word(words - 2) + " " + word(words - 1);
+    }
+
+    private String text(Random random, int length) {
+        StringJoiner text = new StringJoiner(" ");
+        for (int i = 0; i < length; i++) {
+            text.add(word(skewedWord(random)));
+        }
+        return text.toString();
+    }
+
+    private int skewedWord(Random random) {
+        double uniform = random.nextDouble();
+        return (int) (uniform * uniform * uniform * words);
+    }
+
+    private static String word(int number) {
+        return "w" + number;
+    }
+
+    @Benchmark
+    public void commonTerms(Blackhole blackhole) {
+        blackhole.consume(index.search(commonQuery, LIMIT));
+    }
+
+    @Benchmark
+    public void rareTerms(Blackhole blackhole) {
+        blackhole.consume(index.search(rareQuery, LIMIT));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecipeSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
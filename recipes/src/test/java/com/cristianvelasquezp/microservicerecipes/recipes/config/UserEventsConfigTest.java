@@ -0,0 +1,97 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.config;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.events.UserChangedEvent;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.UserSummaryRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.UserProfileService;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.client.BatchingUserClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recipes-events;MODE=PostgreSQL;NON_KEYWORDS=VALUE",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "SPRING_PROFILES_ACTIVE=default",
+        "CONFIG_SERVER_URL=http://localhost:8071"
+})
+@Import(TestChannelBinderConfiguration.class)
+class UserEventsConfigTest {
+
+    private static final String DESTINATION = "users.events";
+
+    @Autowired
+    private InputDestination inputDestination;
+
+    @Autowired
+    private UserSummaryRepository userSummaryRepository;
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @MockitoBean
+    private BatchingUserClient batchingUserClient;
+
+    @BeforeEach
+    void setUp() {
+        userSummaryRepository.deleteAll();
+    }
+
+    private void send(UserChangedEvent event) {
+        inputDestination.send(MessageBuilder.withPayload(event).build(), DESTINATION);
+    }
+
+    @DisplayName("Should keep the latest version of a user and serve it without calling the users service")
+    @Test
+    void testUserEvents_whenEventsArriveOutOfOrder_thenKeepTheLatestVersion() {
+        // Given
+        send(new UserChangedEvent(UserChangedEvent.Type.CREATED, 1L, "jdoe", "John", "Doe", 0L));
+        Optional<UserEntity> before = userProfileService.getUserProfile(1L);
+
+        // When
+        send(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 1L, "jdoe", "Johnny", "Doe", 2L));
+        send(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 1L, "jdoe", "Jonathan", "Doe", 1L));
+
+        // Then
+        UserSummaryEntity summary = userSummaryRepository.findById(1L).orElseThrow();
+        assertEquals("Johnny", summary.getFirstName());
+        assertEquals(2L, summary.getVersion());
+        assertEquals("John", before.orElseThrow().getFirstName());
+        assertEquals("Johnny", userProfileService.getUserProfile(1L).orElseThrow().getFirstName());
+        verify(batchingUserClient, never()).getUserById(any());
+    }
+
+    @DisplayName("Should keep a deleted user deleted even if an older event arrives later")
+    @Test
+    void testUserEvents_whenUserIsDeleted_thenIgnoreLaterOlderEvents() {
+        // Given
+        send(new UserChangedEvent(UserChangedEvent.Type.CREATED, 2L, "asmith", "Ann", "Smith", 0L));
+
+        // When
+        send(new UserChangedEvent(UserChangedEvent.Type.DELETED, 2L, null, null, null, Long.MAX_VALUE));
+        send(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 2L, "asmith", "Annie", "Smith", 1L));
+
+        // Then
+        assertTrue(userSummaryRepository.findById(2L).orElseThrow().isDeleted());
+        assertTrue(userProfileService.getUserProfile(2L).isEmpty());
+        verify(batchingUserClient, never()).getUserById(any());
+    }
+}
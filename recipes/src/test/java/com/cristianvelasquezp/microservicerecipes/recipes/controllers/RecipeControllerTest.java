@@ -2,29 +2,42 @@ package com.cristianvelasquezp.microservicerecipes.recipes.controllers;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeVersionConflictException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserServiceUnavailableException;
 import com.cristianvelasquezp.microservicerecipes.recipes.models.ErrorResponseModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.RecipeMatchModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.UserRecipesModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.RecipeExportService;
 import com.cristianvelasquezp.microservicerecipes.recipes.services.RecipeService;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.UserRecipesService;
 import com.cristianvelasquezp.microservicerecipes.recipes.utils.RecipeTestUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -38,6 +51,12 @@ class RecipeControllerTest {
     @MockitoBean
     RecipeService recipeService;
 
+    @MockitoBean
+    RecipeExportService recipeExportService;
+
+    @MockitoBean
+    UserRecipesService userRecipesService;
+
     RecipeTestUtils recipeTestUtils;
 
     List<RecipeEntity> recipes;
@@ -57,7 +76,7 @@ class RecipeControllerTest {
     @DisplayName("Should return all recipes when there are recipes in the database")
     void testGetAllRecipes_whenThereAreRecipesInDatabase_thenReturnAllRecipes() throws Exception {
         //Given
-        when(recipeService.getAllRecipes()).thenReturn(recipes);
+        when(recipeService.getAllRecipes(null, 50)).thenReturn(recipes);
         RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes");
         //When
         MvcResult result = mockMvc.perform(requestBuilder).andReturn();
@@ -76,13 +95,53 @@ class RecipeControllerTest {
         assertEquals("Cook pasta. Prepare sauce. Combine and serve.", response.getFirst().getDirections());
         assertEquals("Spaghetti", response.getFirst().getIngredients().getFirst().getValue());
         assertEquals(1, response.getFirst().getUserId());
+        assertNull(result.getResponse().getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Should return the next cursor when the page is full")
+    void testGetAllRecipes_whenPageIsFull_thenReturnNextCursor() throws Exception {
+        //Given
+        when(recipeService.getAllRecipes(2L, 3)).thenReturn(recipes.subList(2, 5));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes?after=2&limit=3");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<RecipeEntity>> jacksonTypeReference = new TypeReference<List<RecipeEntity>>() {};
+
+        List<RecipeEntity> response = objectMapper.readValue(responseBodyAsString, jacksonTypeReference);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(3, response.size());
+        assertEquals(3L, response.getFirst().getId());
+        assertEquals("5", result.getResponse().getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Should return error 400 when the limit is out of range")
+    void testGetAllRecipes_whenLimitIsOutOfRange_thenReturnError400() throws Exception {
+        //Given
+        when(recipeService.getAllRecipes(null, 5000)).thenThrow(new IllegalArgumentException("Limit must be between 1 and 1000"));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes?limit=5000");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(400, result.getResponse().getStatus());
+        assertEquals("Limit must be between 1 and 1000", response.getMessage());
     }
 
     @Test
     @DisplayName("Should return all recipes when there are no recipes in the database")
     void testGetAllRecipes_whenThereAreNoRecipesInDatabase_thenReturnEmptyList() throws Exception {
         //Given
-        when(recipeService.getAllRecipes()).thenReturn(List.of());
+        when(recipeService.getAllRecipes(null, 50)).thenReturn(List.of());
         RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes");
         //When
         MvcResult result = mockMvc.perform(requestBuilder).andReturn();
@@ -101,7 +160,7 @@ class RecipeControllerTest {
     @DisplayName("Should return error 500 when there is an error fetching recipes")
     void testGetAllRecipes_whenThereIsAnErrorFetchingRecipes_thenReturnError500() throws Exception {
         //Given
-        when(recipeService.getAllRecipes()).thenThrow(new DatabaseConnectionException("An error occurred while fetching recipes: Connection refused", new Exception()));
+        when(recipeService.getAllRecipes(null, 50)).thenThrow(new DatabaseConnectionException("An error occurred while fetching recipes: Connection refused", new Exception()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes");
         //When
         MvcResult result = mockMvc.perform(requestBuilder).andReturn();
@@ -116,6 +175,92 @@ class RecipeControllerTest {
         assertEquals("An error occurred while fetching recipes: Connection refused", response.getMessage());
     }
 
+    @Test
+    @DisplayName("Should stream all recipes as newline-delimited JSON")
+    void testExportRecipes_whenThereAreRecipesInDatabase_thenStreamNdjson() throws Exception {
+        //Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        when(recipeExportService.exportRecipes(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            for (RecipeEntity recipe : recipes) {
+                outputStream.write(objectMapper.writeValueAsBytes(recipe));
+                outputStream.write('\n');
+            }
+            return (long) recipes.size();
+        });
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/export");
+        //When
+        MvcResult asyncResult = mockMvc.perform(requestBuilder).andReturn();
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult)).andReturn();
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals("application/x-ndjson", result.getResponse().getContentType());
+        assertEquals(recipes.size(), lines.length);
+        assertEquals("Spaghetti Bolognese", objectMapper.readValue(lines[0], RecipeEntity.class).getName());
+        assertEquals("Chocolate Cake", objectMapper.readValue(lines[9], RecipeEntity.class).getName());
+    }
+
+    @Test
+    @DisplayName("Should return the recipes matching a search query")
+    void testSearchRecipes_whenRecipesMatch_thenReturnRecipes() throws Exception {
+        //Given
+        when(recipeService.searchRecipes("recipe 2", 20)).thenReturn(List.of(recipes.get(1)));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/search?q=recipe 2");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<RecipeEntity>> jacksonTypeReference = new TypeReference<List<RecipeEntity>>() {};
+
+        List<RecipeEntity> response = objectMapper.readValue(responseBodyAsString, jacksonTypeReference);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(1, response.size());
+        assertEquals(2L, response.getFirst().getId());
+    }
+
+    @Test
+    @DisplayName("Should return error 400 when the search query is blank")
+    void testSearchRecipes_whenQueryIsBlank_thenReturnError400() throws Exception {
+        //Given
+        when(recipeService.searchRecipes(" ", 20)).thenThrow(new IllegalArgumentException("A search query is required"));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/search?q= ");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(400, result.getResponse().getStatus());
+        assertEquals("A search query is required", response.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should return the recipes covered by the given ingredients")
+    void testFindRecipesByIngredients_whenRecipesMatch_thenReturnMatches() throws Exception {
+        //Given
+        when(recipeService.findRecipesByIngredients(List.of(1L, 2L), 0.5, 20)).thenReturn(List.of(new RecipeMatchModel(recipes.getFirst(), 1, 2, 0.5)));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/cook?ingredients=1,2&minCoverage=0.5");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<RecipeMatchModel>> jacksonTypeReference = new TypeReference<List<RecipeMatchModel>>() {};
+
+        List<RecipeMatchModel> response = objectMapper.readValue(responseBodyAsString, jacksonTypeReference);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(1, response.size());
+        assertEquals(1L, response.getFirst().getRecipe().getId());
+        assertEquals(0.5, response.getFirst().getCoverage());
+    }
+
     @Test
     @DisplayName("Should return a recipe when the id exists")
     void testGetRecipeById_whenIdExists_thenReturnRecipe() throws Exception {
@@ -237,6 +382,51 @@ class RecipeControllerTest {
         assertEquals("An error occurred while creating recipe: Connection refused", response.getMessage());
     }
 
+    @Test
+    @DisplayName("Should return the created recipes when a batch is created successfully")
+    void testCreateRecipes_whenBatchIsCreated_thenReturnRecipes() throws Exception {
+        //Given
+        List<RecipeEntity> newRecipes = recipes.subList(0, 3);
+        when(recipeService.createRecipes(any())).thenReturn(newRecipes);
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/recipes/batch")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(new ObjectMapper().writeValueAsString(newRecipes));
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<RecipeEntity>> jacksonTypeReference = new TypeReference<List<RecipeEntity>>() {};
+
+        List<RecipeEntity> response = objectMapper.readValue(responseBodyAsString, jacksonTypeReference);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(3, response.size());
+        assertEquals("Caesar Salad", response.getLast().getName());
+    }
+
+    @Test
+    @DisplayName("Should return error 400 when the batch is too large")
+    void testCreateRecipes_whenBatchIsTooLarge_thenReturnError400() throws Exception {
+        //Given
+        when(recipeService.createRecipes(any())).thenThrow(new IllegalArgumentException("A batch can contain at most 5000 recipes"));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/recipes/batch")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(new ObjectMapper().writeValueAsString(recipes));
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(400, result.getResponse().getStatus());
+        assertEquals("A batch can contain at most 5000 recipes", response.getMessage());
+    }
+
     @Test
     @DisplayName("Should return a recipe when a recipe is updated successfully")
     void testUpdateRecipe_whenRecipeIsUpdated_thenReturnRecipe() throws Exception {
@@ -291,6 +481,30 @@ class RecipeControllerTest {
         assertEquals("Recipe must have an id to be updated", response.getMessage());
     }
 
+    @Test
+    @DisplayName("Should return error 409 when the recipe was modified by another request")
+    void testUpdateRecipe_whenVersionIsStale_thenReturnError409() throws Exception {
+        //Given
+        RecipeEntity updatedRecipe = recipes.getFirst();
+
+        when(recipeService.updateRecipe(any(RecipeEntity.class))).thenThrow(new RecipeVersionConflictException("An error occurred while updating recipe: Recipe with id 1 was modified by another request"));
+
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.put("/recipes")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(new ObjectMapper().writeValueAsString(updatedRecipe));
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(409, result.getResponse().getStatus());
+        assertEquals("An error occurred while updating recipe: Recipe with id 1 was modified by another request", response.getMessage());
+    }
+
     // Test the deleteRecipe method
 
     @Test
@@ -346,4 +560,139 @@ class RecipeControllerTest {
         assertEquals(500, result.getResponse().getStatus());
         assertEquals("An error occurred while deleting recipe with id: 1 Connection refused", response.getMessage());
     }
-}
\ No newline at end of file
+
+    // Test the getRecipesByUserId method
+
+    @Test
+    @DisplayName("Should return a user together with their recipes")
+    void testGetRecipesByUserId_whenUserExists_thenReturnUserAndRecipes() throws Exception {
+        //Given
+        UserEntity user = new UserEntity();
+        user.setId(1L);
+        user.setUsername("user1");
+        when(userRecipesService.getRecipesByUserId(1L)).thenReturn(new UserRecipesModel(user, recipes.subList(0, 2)));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/user/1");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        UserRecipesModel response = objectMapper.readValue(responseBodyAsString, UserRecipesModel.class);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals("user1", response.getUser().getUsername());
+        assertEquals(2, response.getRecipes().size());
+    }
+
+    @Test
+    @DisplayName("Should return error 404 when the user does not exist")
+    void testGetRecipesByUserId_whenUserDoesNotExist_thenReturnError404() throws Exception {
+        //Given
+        when(userRecipesService.getRecipesByUserId(12L)).thenThrow(new UserNotFoundException("User with id: 12 not found"));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/user/12");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(404, result.getResponse().getStatus());
+        assertEquals("User with id: 12 not found", response.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should return error 503 when the users service is unavailable")
+    void testGetRecipesByUserId_whenUserServiceIsUnavailable_thenReturnError503() throws Exception {
+        //Given
+        when(userRecipesService.getRecipesByUserId(1L)).thenThrow(new UserServiceUnavailableException("The users service is unavailable: CircuitBreaker 'users' is OPEN"));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/user/1");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        //Then
+        assertEquals(503, result.getResponse().getStatus());
+        assertEquals("The users service is unavailable: CircuitBreaker 'users' is OPEN", response.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should return only the requested fields and the next cursor when fields are given")
+    void testGetAllRecipes_whenFieldsAreGiven_thenReturnOnlyThoseFields() throws Exception {
+        //Given
+        List<Map<String, Object>> rows = List.of(Map.of("id", 3L, "name", "Tacos"), Map.of("id", 4L, "name", "Ramen"));
+        when(recipeService.getAllRecipeFields(2L, 2, List.of("name"))).thenReturn(rows);
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes?after=2&limit=2&fields=name");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<Map<String, Object>> response = objectMapper.readValue(responseBodyAsString, new TypeReference<List<Map<String, Object>>>() {});
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(List.of(Map.of("id", 3, "name", "Tacos"), Map.of("id", 4, "name", "Ramen")), response);
+        assertEquals("4", result.getResponse().getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Should return only the requested fields of a recipe when fields are given")
+    void testGetRecipeById_whenFieldsAreGiven_thenReturnOnlyThoseFields() throws Exception {
+        //Given
+        when(recipeService.getRecipeFieldsById(1L, List.of("name", "userId"))).thenReturn(Optional.of(Map.of("id", 1L, "name", "Spaghetti Bolognese", "userId", 1)));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/1?fields=name,userId");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        Map<String, Object> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<Map<String, Object>>() {});
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(Map.of("id", 1, "name", "Spaghetti Bolognese", "userId", 1), response);
+    }
+
+    @Test
+    @DisplayName("Should return a recipe as CBOR when the client accepts CBOR")
+    void testGetRecipeById_whenClientAcceptsCbor_thenReturnCbor() throws Exception {
+        //Given
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.ofNullable(recipes.getFirst()));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/recipes/1").accept(MediaType.APPLICATION_CBOR);
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+
+        RecipeEntity response = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), RecipeEntity.class);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, result.getResponse().getContentType());
+        assertEquals("Spaghetti Bolognese", response.getName());
+        assertEquals("Spaghetti", response.getIngredients().getFirst().getValue());
+    }
+
+    @Test
+    @DisplayName("Should create a recipe sent as CBOR")
+    void testCreateRecipe_whenBodyIsCbor_thenCreateRecipe() throws Exception {
+        //Given
+        RecipeEntity recipe = recipes.getFirst();
+        when(recipeService.createRecipe(any(RecipeEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/recipes")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(new CBORMapper().writeValueAsBytes(recipe));
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+
+        RecipeEntity response = new ObjectMapper().readValue(result.getResponse().getContentAsString(), RecipeEntity.class);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(recipe.getName(), response.getName());
+        assertEquals(recipe.getDirections(), response.getDirections());
+    }
+}
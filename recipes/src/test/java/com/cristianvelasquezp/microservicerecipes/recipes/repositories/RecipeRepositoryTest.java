@@ -0,0 +1,222 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.CategoryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recipes;MODE=PostgreSQL;NON_KEYWORDS=VALUE",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RecipeRepositoryTest {
+
+    private static final int RECIPES = 1000;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long firstRecipeId;
+
+    @BeforeEach
+    void setUp() {
+        List<CategoryEntity> categories = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            categories.add(entityManager.persist(new CategoryEntity(null, "Category " + i)));
+        }
+        List<IngredientEntity> ingredients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ingredients.add(entityManager.persist(new IngredientEntity(null, "Ingredient " + i)));
+        }
+        for (int i = 0; i < RECIPES; i++) {
+            RecipeEntity recipe = new RecipeEntity();
+            recipe.setName("Recipe " + i);
+            recipe.setDescription("Description for Recipe " + i);
+            recipe.setCategory(categories.get(i % categories.size()));
+            recipe.setDirections("Directions for Recipe " + i);
+            recipe.setIngredients(List.of(ingredients.get(i % 50), ingredients.get((i + 1) % 50), ingredients.get((i + 2) % 50)));
+            recipe.setUserId(i);
+            RecipeEntity saved = entityManager.persist(recipe);
+            if (firstRecipeId == null) {
+                firstRecipeId = saved.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @DisplayName("Should load a page of 1000 recipes with categories and ingredients in two statements")
+    @Test
+    void testFindByIdGreaterThan_whenPageHasThousandRecipes_thenLoadGraphInConstantStatements() {
+        // When
+        List<RecipeEntity> page = recipeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(RECIPES));
+        int ingredientCount = 0;
+        for (RecipeEntity recipe : page) {
+            assertNotNull(recipe.getCategory().getName());
+            ingredientCount += recipe.getIngredients().size();
+        }
+
+        // Then
+        assertEquals(RECIPES, page.size());
+        assertEquals(RECIPES * 3, ingredientCount);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @DisplayName("Should stream every recipe in id order")
+    @Test
+    void testStreamAllByOrderByIdAsc_whenThereAreRecipes_thenStreamAllInIdOrder() {
+        // When
+        List<Long> ids;
+        try (Stream<RecipeEntity> recipes = recipeRepository.streamAllByOrderByIdAsc()) {
+            ids = recipes.map(RecipeEntity::getId).toList();
+        }
+
+        // Then
+        assertEquals(RECIPES, ids.size());
+        assertEquals(firstRecipeId, ids.getFirst());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+    }
+
+    @DisplayName("Should load a recipe with its category and ingredients in one statement")
+    @Test
+    void testFindById_whenRecipeExists_thenLoadGraphInOneStatement() {
+        // When
+        Optional<RecipeEntity> recipe = recipeRepository.findById(firstRecipeId);
+
+        // Then
+        assertTrue(recipe.isPresent());
+        assertEquals("Category 0", recipe.get().getCategory().getName());
+        assertEquals(3, recipe.get().getIngredients().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DisplayName("Should update a recipe in one statement when the version matches")
+    @Test
+    void testUpdateIfVersionMatches_whenVersionMatches_thenUpdateInOneStatement() {
+        // Given
+        RecipeEntity recipe = recipeRepository.findById(firstRecipeId).orElseThrow();
+        entityManager.clear();
+        statistics.clear();
+        recipe.setName("Updated Recipe 0");
+
+        // When
+        int updated = recipeRepository.updateIfVersionMatches(recipe);
+
+        // Then
+        assertEquals(1, updated);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        RecipeEntity stored = recipeRepository.findById(firstRecipeId).orElseThrow();
+        assertEquals("Updated Recipe 0", stored.getName());
+        assertEquals(recipe.getVersion() + 1, stored.getVersion());
+    }
+
+    @DisplayName("Should not update a recipe when the version is stale")
+    @Test
+    void testUpdateIfVersionMatches_whenVersionIsStale_thenUpdateNothing() {
+        // Given
+        RecipeEntity recipe = recipeRepository.findById(firstRecipeId).orElseThrow();
+        entityManager.clear();
+        recipe.setVersion(recipe.getVersion() + 1);
+        recipe.setName("Updated Recipe 0");
+
+        // When
+        int updated = recipeRepository.updateIfVersionMatches(recipe);
+
+        // Then
+        assertEquals(0, updated);
+        assertEquals("Recipe 0", recipeRepository.findById(firstRecipeId).orElseThrow().getName());
+    }
+
+    @DisplayName("Should replace the ingredient links of a recipe")
+    @Test
+    void testInsertIngredientLinks_whenLinksAreRewritten_thenKeepOnlyTheNewIngredients() {
+        // Given
+        List<Long> current = recipeRepository.findById(firstRecipeId).orElseThrow().getIngredients().stream().map(IngredientEntity::getId).toList();
+        entityManager.clear();
+        List<Long> wanted = List.of(current.get(0), current.get(0) + 10);
+
+        // When
+        recipeRepository.deleteIngredientLinksExcept(firstRecipeId, wanted);
+        recipeRepository.insertIngredientLinks(firstRecipeId, wanted);
+        entityManager.clear();
+
+        // Then
+        List<Long> stored = recipeRepository.findById(firstRecipeId).orElseThrow().getIngredients().stream().map(IngredientEntity::getId).sorted().toList();
+        assertEquals(wanted, stored);
+    }
+
+    @DisplayName("Should load the recipes of one user with their categories in one statement")
+    @Test
+    void testFindByUserIdOrderByIdAsc_whenUserHasRecipes_thenLoadInOneStatement() {
+        // When
+        List<RecipeEntity> recipes = recipeRepository.findByUserIdOrderByIdAsc(7);
+
+        // Then
+        assertEquals(1, recipes.size());
+        assertEquals("Recipe 7", recipes.getFirst().getName());
+        assertEquals("Category 7", recipes.getFirst().getCategory().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DisplayName("Should select only the requested columns of a page of recipes in one statement")
+    @Test
+    void testFindFieldsByIdGreaterThan_whenFieldsAreGiven_thenReturnOnlyThoseFields() {
+        // When
+        List<Map<String, Object>> page = recipeRepository.findFieldsByIdGreaterThan(List.of("id", "name", "userId"), firstRecipeId, 3);
+
+        // Then
+        assertEquals(3, page.size());
+        assertEquals(List.of("id", "name", "userId"), List.copyOf(page.getFirst().keySet()));
+        assertEquals(firstRecipeId + 1, page.getFirst().get("id"));
+        assertEquals("Recipe 1", page.getFirst().get("name"));
+        assertEquals(1, page.getFirst().get("userId"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @DisplayName("Should select only the requested columns of one recipe")
+    @Test
+    void testFindFieldsById_whenRecipeExists_thenReturnOnlyThoseFields() {
+        // When
+        Optional<Map<String, Object>> recipe = recipeRepository.findFieldsById(List.of("id", "description"), firstRecipeId);
+
+        // Then
+        assertTrue(recipe.isPresent());
+        assertEquals(Map.of("id", firstRecipeId, "description", "Description for Recipe 0"), recipe.get());
+        assertTrue(recipeRepository.findFieldsById(List.of("id"), -1L).isEmpty());
+    }
+}
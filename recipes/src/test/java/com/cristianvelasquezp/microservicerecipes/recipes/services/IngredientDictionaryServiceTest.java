@@ -0,0 +1,169 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngredientDictionaryServiceTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IngredientDictionaryServiceImpl ingredientDictionaryService;
+
+    @BeforeEach
+    void setUp() {
+        ingredientDictionaryService = new IngredientDictionaryServiceImpl(ingredientRepository, transactionManager, 100);
+    }
+
+    @DisplayName("Should normalize ingredient values")
+    @Test
+    void testNormalize_whenValueHasCaseAndWhitespace_returnCanonicalValue() {
+        assertEquals("sea salt", IngredientDictionaryServiceImpl.normalize("  Sea \t SALT "));
+    }
+
+    @DisplayName("Should resolve all values with one query and insert only the missing ones in one batch")
+    @Test
+    void testResolveIngredients_whenSomeValuesAreMissing_queryOnceAndInsertMissingOnce() {
+        // Given
+        RecipeEntity first = recipe(new IngredientEntity(null, "Salt"), new IngredientEntity(null, " salt "), new IngredientEntity(null, "Pepper"));
+        RecipeEntity second = recipe(new IngredientEntity(null, "PEPPER"), new IngredientEntity(null, "Garlic"));
+        when(ingredientRepository.findByValueIn(anyCollection())).thenReturn(List.of(new IngredientEntity(1L, "salt")));
+        when(ingredientRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> withIds(invocation.getArgument(0), 100L));
+
+        // When
+        ingredientDictionaryService.resolveIngredients(List.of(first, second));
+
+        // Then
+        ArgumentCaptor<Collection<String>> queried = ArgumentCaptor.captor();
+        verify(ingredientRepository).findByValueIn(queried.capture());
+        assertEquals(Set.of("salt", "pepper", "garlic"), Set.copyOf(queried.getValue()));
+        ArgumentCaptor<List<IngredientEntity>> inserted = ArgumentCaptor.captor();
+        verify(ingredientRepository).saveAllAndFlush(inserted.capture());
+        assertEquals(List.of("pepper", "garlic"), inserted.getValue().stream().map(IngredientEntity::getValue).toList());
+
+        assertEquals(List.of(1L, 100L), first.getIngredients().stream().map(IngredientEntity::getId).toList());
+        assertEquals(List.of(100L, 101L), second.getIngredients().stream().map(IngredientEntity::getId).toList());
+        assertEquals("garlic", second.getIngredients().getLast().getValue());
+    }
+
+    @DisplayName("Should serve known values from the cache without querying the database")
+    @Test
+    void testResolveIngredients_whenValuesAreCached_doNotQueryDatabase() {
+        // Given
+        when(ingredientRepository.findByValueIn(anyCollection())).thenReturn(List.of(new IngredientEntity(1L, "salt")));
+        ingredientDictionaryService.resolveIngredients(List.of(recipe(new IngredientEntity(null, "Salt"))));
+
+        // When
+        RecipeEntity recipe = recipe(new IngredientEntity(null, "salt"));
+        ingredientDictionaryService.resolveIngredients(List.of(recipe));
+
+        // Then
+        verify(ingredientRepository, times(1)).findByValueIn(anyCollection());
+        verify(ingredientRepository, never()).saveAllAndFlush(anyList());
+        assertEquals(1L, recipe.getIngredients().getFirst().getId());
+    }
+
+    @DisplayName("Should read back the ingredients a concurrent write inserted first and insert only the rest")
+    @Test
+    void testResolveIngredients_whenConcurrentWriteInsertedSameValue_readItBack() {
+        // Given
+        RecipeEntity recipe = recipe(new IngredientEntity(null, "Salt"), new IngredientEntity(null, "Pepper"));
+        when(ingredientRepository.findByValueIn(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new IngredientEntity(5L, "salt")));
+        when(ingredientRepository.saveAllAndFlush(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"))
+                .thenAnswer(invocation -> withIds(invocation.getArgument(0), 100L));
+
+        // When
+        ingredientDictionaryService.resolveIngredients(List.of(recipe));
+
+        // Then
+        ArgumentCaptor<List<IngredientEntity>> inserted = ArgumentCaptor.captor();
+        verify(ingredientRepository, times(2)).saveAllAndFlush(inserted.capture());
+        assertEquals(List.of("pepper"), inserted.getValue().stream().map(IngredientEntity::getValue).toList());
+        assertEquals(List.of(5L, 100L), recipe.getIngredients().stream().map(IngredientEntity::getId).toList());
+    }
+
+    @DisplayName("Should give up when the insert keeps failing")
+    @Test
+    void testResolveIngredients_whenInsertKeepsFailing_throwException() {
+        // Given
+        RecipeEntity recipe = recipe(new IngredientEntity(null, "Salt"));
+        when(ingredientRepository.findByValueIn(anyCollection())).thenReturn(List.of());
+        when(ingredientRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("value too long"));
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> ingredientDictionaryService.resolveIngredients(List.of(recipe)));
+        verify(ingredientRepository, times(3)).saveAllAndFlush(anyList());
+    }
+
+    @DisplayName("Should keep ingredients referenced only by id")
+    @Test
+    void testResolveIngredients_whenIngredientHasOnlyId_keepReference() {
+        // Given
+        RecipeEntity recipe = recipe(new IngredientEntity(7L, null));
+
+        // When
+        ingredientDictionaryService.resolveIngredients(List.of(recipe));
+
+        // Then
+        verify(ingredientRepository, never()).findByValueIn(anyCollection());
+        assertEquals(7L, recipe.getIngredients().getFirst().getId());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when an ingredient has neither value nor id")
+    @Test
+    void testResolveIngredients_whenIngredientHasNoValueNorId_throwExceptionWithSpecificMessage() {
+        // Given
+        RecipeEntity recipe = recipe(new IngredientEntity(null, " "));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ingredientDictionaryService.resolveIngredients(List.of(recipe)));
+        assertEquals("Ingredient must have a value or an id", exception.getMessage());
+    }
+
+    private RecipeEntity recipe(IngredientEntity... ingredients) {
+        RecipeEntity recipe = new RecipeEntity();
+        recipe.setName("Recipe");
+        recipe.setIngredients(List.of(ingredients));
+        return recipe;
+    }
+
+    private List<IngredientEntity> withIds(List<IngredientEntity> ingredients, long firstId) {
+        List<IngredientEntity> saved = new ArrayList<>();
+        long id = firstId;
+        for (IngredientEntity ingredient : ingredients) {
+            ingredient.setId(id++);
+            saved.add(ingredient);
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,101 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.DatabaseConnectionException;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.utils.RecipeTestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeExportServiceTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RecipeExportServiceImpl recipeExportService;
+
+    private List<RecipeEntity> recipes;
+
+    @BeforeEach
+    void setUp() {
+        recipeExportService = new RecipeExportServiceImpl(recipeRepository, entityManager, objectMapper);
+        recipes = new RecipeTestUtils().createRecipeEntities();
+    }
+
+    @DisplayName("Should write one JSON line per recipe")
+    @Test
+    void testExportRecipes_whenThereAreRecipes_writeOneLinePerRecipe() throws Exception {
+        // Given
+        when(recipeRepository.streamAllByOrderByIdAsc()).thenReturn(recipes.stream());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exported = recipeExportService.exportRecipes(outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, exported);
+        assertEquals(10, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], RecipeEntity.class).getId());
+        assertEquals("Chocolate Cake", objectMapper.readValue(lines[9], RecipeEntity.class).getName());
+    }
+
+    @DisplayName("Should clear the persistence context after every chunk")
+    @Test
+    void testExportRecipes_whenThereAreMoreRecipesThanChunkSize_clearPersistenceContextPerChunk() throws Exception {
+        // Given
+        List<RecipeEntity> manyRecipes = new ArrayList<>();
+        LongStream.rangeClosed(1, RecipeExportServiceImpl.CHUNK_SIZE * 2L + 1).forEach(id -> {
+            RecipeEntity recipe = new RecipeEntity();
+            recipe.setId(id);
+            recipe.setName("Recipe " + id);
+            recipe.setIngredients(List.of());
+            manyRecipes.add(recipe);
+        });
+        when(recipeRepository.streamAllByOrderByIdAsc()).thenReturn(manyRecipes.stream());
+
+        // When
+        long exported = recipeExportService.exportRecipes(new ByteArrayOutputStream());
+
+        // Then
+        assertEquals(manyRecipes.size(), exported);
+        verify(entityManager, times(3)).clear();
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the repository returns an error")
+    @Test
+    void testExportRecipes_whenRepositoryThrowsException_throwExceptionWithSpecificMessage() {
+        // Given
+        when(recipeRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.generate(() -> {
+            throw new RuntimeException("Database error");
+        }));
+
+        // When & Then
+        DatabaseConnectionException exception = assertThrows(DatabaseConnectionException.class, () -> recipeExportService.exportRecipes(new ByteArrayOutputStream()));
+        assertEquals("An error occurred while exporting recipes: Database error", exception.getMessage());
+    }
+}
@@ -0,0 +1,192 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.CategoryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.config.CacheConfig;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.IngredientCoverageIndex;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeIndexer;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks on the batches that reach the JDBC driver that a bulk create is written in full JDBC
+ * batches under the settings of application.yml: hibernate.jdbc.batch_size, order_inserts and the
+ * pooled sequences, without which every insert would be sent on its own.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recipes-batch;MODE=PostgreSQL;NON_KEYWORDS=VALUE",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CacheConfig.class, RecipeServiceImpl.class, IngredientDictionaryServiceImpl.class})
+class RecipeServiceBatchInsertTest {
+
+    private static final int RECIPES = 400;
+
+    private static final int INGREDIENTS_PER_RECIPE = 3;
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    private static final AtomicInteger singleInserts = new AtomicInteger();
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private RecipeIndexer recipeIndexer;
+
+    @MockitoBean
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @MockitoBean
+    private IngredientCoverageIndex ingredientCoverageIndex;
+
+    private CategoryEntity category;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        category = entityManager.persistAndFlush(new CategoryEntity(null, "Dinner"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        batchSizes.clear();
+        singleInserts.set(0);
+    }
+
+    /**
+     * Wraps the data source so that the statements it hands out record the number of rows in each
+     * batch they execute, and count the inserts executed on their own.
+     */
+    @TestConfiguration
+    static class BatchCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, new CountingHandler(dataSource, null)) : bean;
+                }
+            };
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static final class CountingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        private final String sql;
+
+        private int pendingRows;
+
+        CountingHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            switch (method.getName()) {
+                case "getConnection" -> result = proxy(Connection.class, new CountingHandler(result, null));
+                case "prepareStatement" -> result = proxy(PreparedStatement.class, new CountingHandler(result, (String) args[0]));
+                case "addBatch" -> pendingRows++;
+                case "executeBatch" -> {
+                    batchSizes.add(pendingRows);
+                    pendingRows = 0;
+                }
+                case "executeUpdate" -> {
+                    if (sql != null && sql.toLowerCase(Locale.ROOT).startsWith("insert")) {
+                        singleInserts.incrementAndGet();
+                    }
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+
+    @DisplayName("Should insert a bulk create in JDBC batches instead of one statement per row")
+    @Test
+    void testCreateRecipes_whenManyRecipes_insertInJdbcBatches() {
+        // Given
+        List<RecipeEntity> recipes = new ArrayList<>();
+        for (int i = 0; i < RECIPES; i++) {
+            RecipeEntity recipe = new RecipeEntity();
+            recipe.setName("Recipe " + i);
+            recipe.setCategory(category);
+            recipe.setUserId(1);
+            List<IngredientEntity> ingredients = new ArrayList<>();
+            for (int j = 0; j < INGREDIENTS_PER_RECIPE; j++) {
+                ingredients.add(new IngredientEntity(null, "Ingredient " + ((i + j) % 20)));
+            }
+            recipe.setIngredients(ingredients);
+            recipes.add(recipe);
+        }
+
+        // When
+        recipeService.createRecipes(recipes);
+
+        // Then
+        assertEquals(RECIPES + 20, statistics.getEntityInsertCount());
+        assertEquals(0, singleInserts.get());
+        // Every recipe row and ingredient link goes in a full batch; the 20 new ingredients, fewer
+        // than a batch, go together when the session flushes.
+        List<Integer> expected = new ArrayList<>(Collections.nCopies(RECIPES / BATCH_SIZE + RECIPES * INGREDIENTS_PER_RECIPE / BATCH_SIZE, BATCH_SIZE));
+        expected.add(20);
+        assertEquals(expected, batchSizes.stream().sorted(Collections.reverseOrder()).toList());
+        assertTrue(statistics.getPrepareStatementCount() < 20);
+        assertEquals(List.of(), recipes.stream().filter(recipe -> recipe.getId() == null).toList());
+    }
+}
@@ -0,0 +1,211 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.config.CacheConfig;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.IngredientCoverageIndex;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeIndexer;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeSearchIndex;
+import com.cristianvelasquezp.microservicerecipes.recipes.utils.RecipeTestUtils;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig({CacheConfig.class, RecipeServiceImpl.class})
+@TestPropertySource(properties = "recipes.cache.negative-ttl=500ms")
+class RecipeServiceCacheTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockitoBean
+    private RecipeRepository recipeRepository;
+
+    @MockitoBean
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private IngredientDictionaryService ingredientDictionaryService;
+
+    @MockitoBean
+    private RecipeIndexer recipeIndexer;
+
+    @MockitoBean
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @MockitoBean
+    private IngredientCoverageIndex ingredientCoverageIndex;
+
+    private List<RecipeEntity> recipes;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.RECIPES_CACHE).clear();
+        recipes = new RecipeTestUtils().createRecipeEntities();
+    }
+
+    @DisplayName("Should load a recipe from the repository only once")
+    @Test
+    void testGetRecipeById_whenCalledTwice_loadFromRepositoryOnce() {
+        // Given
+        when(recipeRepository.findById(1L)).thenReturn(Optional.of(recipes.getFirst()));
+
+        // When
+        Optional<RecipeEntity> first = recipeService.getRecipeById(1L);
+        Optional<RecipeEntity> second = recipeService.getRecipeById(1L);
+
+        // Then
+        assertEquals("Spaghetti Bolognese", first.orElseThrow().getName());
+        assertSame(first.orElseThrow(), second.orElseThrow());
+        verify(recipeRepository, times(1)).findById(1L);
+    }
+
+    @DisplayName("Should reload a recipe after it is updated")
+    @Test
+    void testGetRecipeById_whenRecipeIsUpdated_reloadFromRepository() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setVersion(0L);
+        when(recipeRepository.findById(1L)).thenReturn(Optional.of(recipe));
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenReturn(1);
+        recipeService.getRecipeById(1L);
+
+        // When
+        recipeService.updateRecipe(recipe);
+        recipeService.getRecipeById(1L);
+
+        // Then
+        // one load before the update, one after the eviction
+        verify(recipeRepository, times(2)).findById(1L);
+    }
+
+    @DisplayName("Should reload a recipe after it is deleted")
+    @Test
+    void testGetRecipeById_whenRecipeIsDeleted_reloadFromRepository() {
+        // Given
+        when(recipeRepository.findById(1L)).thenReturn(Optional.of(recipes.getFirst()), Optional.empty());
+        when(recipeRepository.existsById(1L)).thenReturn(true);
+        recipeService.getRecipeById(1L);
+
+        // When
+        recipeService.deleteRecipe(1L);
+        Optional<RecipeEntity> afterDelete = recipeService.getRecipeById(1L);
+
+        // Then
+        assertTrue(afterDelete.isEmpty());
+        verify(recipeRepository, times(2)).findById(1L);
+    }
+
+    @DisplayName("Should find a recipe created after its id was probed")
+    @Test
+    void testGetRecipeById_whenRecipeIsCreatedAfterProbe_reloadFromRepository() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        when(recipeRepository.findById(1L)).thenReturn(Optional.empty(), Optional.of(recipe));
+        when(recipeRepository.save(recipe)).thenReturn(recipe);
+        recipeService.getRecipeById(1L);
+
+        // When
+        recipeService.createRecipe(recipe);
+        Optional<RecipeEntity> afterCreate = recipeService.getRecipeById(1L);
+
+        // Then
+        assertEquals(recipe, afterCreate.orElseThrow());
+        verify(recipeRepository, times(2)).findById(1L);
+    }
+
+    @DisplayName("Should find recipes created in bulk after their ids were probed")
+    @Test
+    void testGetRecipeById_whenRecipesAreCreatedInBulkAfterProbe_reloadFromRepository() {
+        // Given
+        RecipeEntity recipe = new RecipeEntity();
+        recipe.setName("Pancakes");
+        when(recipeRepository.findById(5L)).thenReturn(Optional.empty(), Optional.of(recipe));
+        doAnswer(invocation -> {
+            invocation.<RecipeEntity>getArgument(0).setId(5L);
+            return null;
+        }).when(entityManager).persist(recipe);
+        recipeService.getRecipeById(5L);
+
+        // When
+        recipeService.createRecipes(List.of(recipe));
+        Optional<RecipeEntity> afterCreate = recipeService.getRecipeById(5L);
+
+        // Then
+        assertEquals("Pancakes", afterCreate.orElseThrow().getName());
+        verify(recipeRepository, times(2)).findById(5L);
+    }
+
+    @DisplayName("Should remember an unknown id only for the negative TTL")
+    @Test
+    void testGetRecipeById_whenIdIsUnknown_reloadAfterNegativeTtl() throws InterruptedException {
+        // Given
+        when(recipeRepository.findById(1L)).thenReturn(Optional.empty(), Optional.of(recipes.getFirst()));
+        when(recipeRepository.findById(2L)).thenReturn(Optional.of(recipes.get(1)));
+        recipeService.getRecipeById(1L);
+        recipeService.getRecipeById(2L);
+
+        // When
+        Optional<RecipeEntity> beforeExpiry = recipeService.getRecipeById(1L);
+        Thread.sleep(700);
+        Optional<RecipeEntity> afterExpiry = recipeService.getRecipeById(1L);
+        recipeService.getRecipeById(2L);
+
+        // Then
+        assertTrue(beforeExpiry.isEmpty());
+        assertEquals("Spaghetti Bolognese", afterExpiry.orElseThrow().getName());
+        verify(recipeRepository, times(2)).findById(1L);
+        verify(recipeRepository, times(1)).findById(2L);
+    }
+
+    @DisplayName("Should collapse concurrent misses for the same id into a single load")
+    @Test
+    void testGetRecipeById_whenMissesAreConcurrent_loadFromRepositoryOnce() throws Exception {
+        // Given
+        CountDownLatch loading = new CountDownLatch(1);
+        when(recipeRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.await(5, TimeUnit.SECONDS);
+            return Optional.of(recipes.getFirst());
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Optional<RecipeEntity>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> recipeService.getRecipeById(1L)));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+
+        // Then
+        for (Future<Optional<RecipeEntity>> result : results) {
+            assertEquals(1L, result.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        executor.shutdown();
+        verify(recipeRepository, times(1)).findById(1L);
+    }
+}
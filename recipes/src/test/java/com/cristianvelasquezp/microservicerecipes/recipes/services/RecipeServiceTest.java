@@ -1,11 +1,18 @@
 package com.cristianvelasquezp.microservicerecipes.recipes.services;
 
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.CategoryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.config.CacheConfig;
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
 import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.RecipeVersionConflictException;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.RecipeMatchModel;
 import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.IngredientCoverageIndex;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeIndexer;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.index.RecipeSearchIndex;
 import com.cristianvelasquezp.microservicerecipes.recipes.utils.RecipeTestUtils;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,14 +20,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +49,27 @@ class RecipeServiceImplTest {
     @Mock
     private RecipeRepository recipeRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private IngredientDictionaryService ingredientDictionaryService;
+
+    @Mock
+    private RecipeIndexer recipeIndexer;
+
+    @Mock
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Mock
+    private IngredientCoverageIndex ingredientCoverageIndex;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache recipesCache;
+
     @InjectMocks
     private RecipeServiceImpl recipeService;
 
@@ -46,10 +87,10 @@ class RecipeServiceImplTest {
     @Test
     void testGetAllRecipes_whenIHaveRecipesInTheDatabase_returnListOfRecipeEntities() {
         // Given
-        when(recipeRepository.findAll()).thenReturn(recipes);
+        when(recipeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(50))).thenReturn(recipes);
 
         // When
-        List<RecipeEntity> actualRecipes = recipeService.getAllRecipes();
+        List<RecipeEntity> actualRecipes = recipeService.getAllRecipes(null, 50);
 
         // Then
         assertFalse(actualRecipes.isEmpty());
@@ -61,10 +102,10 @@ class RecipeServiceImplTest {
     void testGetAllRecipes_whenNoRecipesInTheDatabase_returnEmptyList() {
         // Given
         List<RecipeEntity> expectedRecipes = new ArrayList<>();
-        when(recipeRepository.findAll()).thenReturn(expectedRecipes);
+        when(recipeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(50))).thenReturn(expectedRecipes);
 
         // When
-        List<RecipeEntity> actualRecipes = recipeService.getAllRecipes();
+        List<RecipeEntity> actualRecipes = recipeService.getAllRecipes(null, 50);
 
         // Then
         assertTrue(actualRecipes.isEmpty());
@@ -74,13 +115,38 @@ class RecipeServiceImplTest {
     @Test
     void testGetAllRecipes_whenRepositoryThrowsException_throwExceptionWithSpecificMessage() {
         // Given
-        when(recipeRepository.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(recipeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(50))).thenThrow(new RuntimeException("Database error"));
 
         // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> recipeService.getAllRecipes());
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> recipeService.getAllRecipes(null, 50));
         assertEquals("An error occurred while fetching recipes: Database error", exception.getMessage());
     }
 
+    @DisplayName("Should fetch the page that starts after the given cursor")
+    @Test
+    void testGetAllRecipes_whenCursorIsGiven_returnRecipesAfterCursor() {
+        // Given
+        List<RecipeEntity> expectedRecipes = recipes.subList(5, 7);
+        when(recipeRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(2))).thenReturn(expectedRecipes);
+
+        // When
+        List<RecipeEntity> actualRecipes = recipeService.getAllRecipes(5L, 2);
+
+        // Then
+        assertEquals(2, actualRecipes.size());
+        assertEquals(6L, actualRecipes.getFirst().getId());
+        assertEquals(7L, actualRecipes.getLast().getId());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the limit is out of range")
+    @Test
+    void testGetAllRecipes_whenLimitIsOutOfRange_throwExceptionWithSpecificMessage() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.getAllRecipes(null, 0));
+        assertEquals("Limit must be between 1 and 1000", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> recipeService.getAllRecipes(null, 1001));
+    }
+
     // Test for getRecipeById
 
     @DisplayName("Should return a recipe entity when the recipe exists in the database")
@@ -128,6 +194,76 @@ class RecipeServiceImplTest {
         assertEquals("An error occurred while fetching recipe with id: " + id + " Database error", exception.getMessage());
     }
 
+    // Test for searchRecipes
+
+    @DisplayName("Should return the matching recipes in rank order")
+    @Test
+    void testSearchRecipes_whenRecipesMatch_returnRecipesInRankOrder() {
+        // Given
+        when(recipeSearchIndex.search("pasta", 20)).thenReturn(List.of(3L, 1L));
+        when(recipeRepository.findByIdIn(List.of(3L, 1L))).thenReturn(List.of(recipes.get(0), recipes.get(2)));
+
+        // When
+        List<RecipeEntity> actualRecipes = recipeService.searchRecipes("pasta", 20);
+
+        // Then
+        assertEquals(2, actualRecipes.size());
+        assertEquals(3L, actualRecipes.get(0).getId());
+        assertEquals(1L, actualRecipes.get(1).getId());
+    }
+
+    @DisplayName("Should return an empty list without querying the database when nothing matches")
+    @Test
+    void testSearchRecipes_whenNothingMatches_returnEmptyList() {
+        // Given
+        when(recipeSearchIndex.search("pasta", 20)).thenReturn(List.of());
+
+        // When
+        List<RecipeEntity> actualRecipes = recipeService.searchRecipes("pasta", 20);
+
+        // Then
+        assertTrue(actualRecipes.isEmpty());
+        verify(recipeRepository, times(0)).findByIdIn(any());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the query is blank")
+    @Test
+    void testSearchRecipes_whenQueryIsBlank_throwExceptionWithSpecificMessage() {
+        // When & Then
+        RuntimeException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.searchRecipes(" ", 20));
+        assertEquals("A search query is required", exception.getMessage());
+    }
+
+    // Test for findRecipesByIngredients
+
+    @DisplayName("Should return the matching recipes with their coverage in rank order")
+    @Test
+    void testFindRecipesByIngredients_whenRecipesMatch_returnMatchesInRankOrder() {
+        // Given
+        when(ingredientCoverageIndex.match(List.of(1L, 2L), 0.5, 20)).thenReturn(List.of(
+                new IngredientCoverageIndex.Match(2L, 2, 2),
+                new IngredientCoverageIndex.Match(1L, 1, 2)));
+        when(recipeRepository.findByIdIn(List.of(2L, 1L))).thenReturn(List.of(recipes.get(0), recipes.get(1)));
+
+        // When
+        List<RecipeMatchModel> matches = recipeService.findRecipesByIngredients(List.of(1L, 2L), 0.5, 20);
+
+        // Then
+        assertEquals(2, matches.size());
+        assertEquals(2L, matches.get(0).getRecipe().getId());
+        assertEquals(1.0, matches.get(0).getCoverage());
+        assertEquals(1L, matches.get(1).getRecipe().getId());
+        assertEquals(0.5, matches.get(1).getCoverage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the minimum coverage is out of range")
+    @Test
+    void testFindRecipesByIngredients_whenCoverageIsOutOfRange_throwExceptionWithSpecificMessage() {
+        // When & Then
+        RuntimeException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.findRecipesByIngredients(List.of(1L), 0, 20));
+        assertEquals("Minimum coverage must be greater than 0 and at most 1", exception.getMessage());
+    }
+
     // Test for createRecipeEntities
 
     @DisplayName("Should return a recipe entity with id when the recipe is created")
@@ -148,6 +284,8 @@ class RecipeServiceImplTest {
         RecipeEntity actualRecipe = recipeService.createRecipe(recipe);
 
         // Then
+        verify(ingredientDictionaryService).resolveIngredients(List.of(recipe));
+        verify(recipeIndexer).indexAfterCommit(List.of(actualRecipe));
         assertNotNull(actualRecipe);
         assertEquals(11L, actualRecipe.getId());
         assertEquals("Recipe 11", actualRecipe.getName());
@@ -177,35 +315,124 @@ class RecipeServiceImplTest {
         assertEquals("An error occurred while creating recipe: Database error", exception.getMessage());
     }
 
+    // Test for createRecipes
+
+    @DisplayName("Should persist every recipe and flush once per flush interval")
+    @Test
+    void testCreateRecipes_whenRecipesAreCreated_persistAllAndFlushPerInterval() {
+        // Given
+        List<RecipeEntity> newRecipes = new ArrayList<>();
+        for (int i = 0; i < RecipeServiceImpl.FLUSH_INTERVAL + 1; i++) {
+            RecipeEntity recipe = new RecipeEntity();
+            recipe.setName("Recipe " + i);
+            recipe.setCategory(new CategoryEntity(1L, "Category 1"));
+            recipe.setUserId(1);
+            newRecipes.add(recipe);
+        }
+        when(cacheManager.getCache(CacheConfig.RECIPES_CACHE)).thenReturn(recipesCache);
+
+        // When
+        List<RecipeEntity> createdRecipes = recipeService.createRecipes(newRecipes);
+
+        // Then
+        assertEquals(newRecipes.size(), createdRecipes.size());
+        verify(ingredientDictionaryService).resolveIngredients(newRecipes);
+        verify(entityManager, times(newRecipes.size())).persist(any(RecipeEntity.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the batch is empty")
+    @Test
+    void testCreateRecipes_whenBatchIsEmpty_throwExceptionWithSpecificMessage() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.createRecipes(List.of()));
+        assertEquals("At least one recipe is required", exception.getMessage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the batch is too large")
+    @Test
+    void testCreateRecipes_whenBatchIsTooLarge_throwExceptionWithSpecificMessage() {
+        // Given
+        List<RecipeEntity> newRecipes = Collections.nCopies(RecipeService.MAX_BATCH_SIZE + 1, new RecipeEntity());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.createRecipes(newRecipes));
+        assertEquals("A batch can contain at most 5000 recipes", exception.getMessage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when a recipe already has an id")
+    @Test
+    void testCreateRecipes_whenRecipeHasId_throwExceptionWithSpecificMessage() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.createRecipes(recipes));
+        assertEquals("Recipes to be created must not have an id", exception.getMessage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the entity manager returns an error")
+    @Test
+    void testCreateRecipes_whenEntityManagerThrowsException_throwExceptionWithSpecificMessage() {
+        // Given
+        RecipeEntity recipe = new RecipeEntity();
+        recipe.setName("Recipe 11");
+        doThrow(new RuntimeException("Database error")).when(entityManager).flush();
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> recipeService.createRecipes(List.of(recipe)));
+        assertEquals("An error occurred while creating recipes: Database error", exception.getMessage());
+    }
+
     // Test for updateRecipe
 
-    @DisplayName("Should return a recipe entity with updated values when the recipe is updated")
+    @DisplayName("Should return the recipe as written, with the server-set date and the next version, without reading it again")
     @Test
-    void testUpdateRecipe_whenRecipeIsUpdated_returnRecipeEntityWithUpdatedValues() {
+    void testUpdateRecipe_whenRecipeIsUpdated_returnWrittenRecipeWithoutReading() {
         // Given
         RecipeEntity recipe = recipes.getFirst();
         recipe.setName("Updated Recipe 1");
         recipe.setDescription("Updated Description for Recipe 1");
         recipe.setCategory(new CategoryEntity(11L, "Updated Category 1"));
-        recipe.setDate(new Timestamp(System.currentTimeMillis()));
+        recipe.setDate(new Timestamp(0));
         recipe.setDirections("Updated Directions for Recipe 1");
         recipe.setIngredients(List.of(new IngredientEntity(11L, "Updated Ingredient 1")));
         recipe.setUserId(11);
-        when(recipeRepository.findById(1L)).thenReturn(Optional.of(recipe));
-        when(recipeRepository.save(recipe)).thenReturn(recipe);
+        recipe.setVersion(3L);
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenReturn(1);
 
         // When
         RecipeEntity actualRecipe = recipeService.updateRecipe(recipe);
 
         // Then
+        verify(recipeRepository).deleteIngredientLinksExcept(1L, List.of(11L));
+        verify(recipeRepository).insertIngredientLinks(1L, List.of(11L));
+        verify(recipeRepository, times(0)).findById(any());
+        verify(recipeIndexer).indexAfterCommit(List.of(actualRecipe));
         assertNotNull(actualRecipe);
         assertEquals(1L, actualRecipe.getId());
+        assertEquals(4L, actualRecipe.getVersion());
+        assertTrue(actualRecipe.getDate().after(new Timestamp(0)));
         assertEquals("Updated Recipe 1", actualRecipe.getName());
-        assertEquals("Updated Description for Recipe 1", actualRecipe.getDescription());
         assertEquals("Updated Category 1", actualRecipe.getCategory().getName());
-        assertEquals("Updated Directions for Recipe 1", actualRecipe.getDirections());
         assertEquals("Updated Ingredient 1", actualRecipe.getIngredients().getFirst().getValue());
-        assertEquals(11, actualRecipe.getUserId());
+    }
+
+    @DisplayName("Should update only the recipe row when the payload has no ingredients")
+    @Test
+    void testUpdateRecipe_whenPayloadHasNoIngredients_leaveIngredientLinksUntouched() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setIngredients(null);
+        recipe.setVersion(0L);
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenReturn(1);
+
+        // When
+        recipeService.updateRecipe(recipe);
+
+        // Then
+        verify(ingredientDictionaryService, times(0)).resolveIngredients(any());
+        verify(recipeRepository, times(0)).deleteIngredientLinksExcept(any(), any());
+        verify(recipeRepository, times(0)).insertIngredientLinks(any(), any());
+        verify(recipeIndexer).reindexAfterCommit(1L);
     }
 
     @DisplayName("Should throw an exception with a specific message when the recipe does not have an id")
@@ -226,6 +453,46 @@ class RecipeServiceImplTest {
         assertEquals("Recipe must have an id to be updated", exception.getMessage());
     }
 
+    @DisplayName("Should throw an exception with a specific message when the recipe does not have a version")
+    @Test
+    void testUpdateRecipe_whenRecipeDoesNotHaveVersion_throwExceptionWithSpecificMessage() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setVersion(null);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.updateRecipe(recipe));
+        assertEquals("Recipe must have a version to be updated", exception.getMessage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the recipe does not have a category")
+    @Test
+    void testUpdateRecipe_whenRecipeDoesNotHaveCategory_throwExceptionWithSpecificMessage() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setVersion(0L);
+        recipe.setCategory(null);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.updateRecipe(recipe));
+        assertEquals("Recipe must have a category to be updated", exception.getMessage());
+        verify(recipeRepository, times(0)).updateIfVersionMatches(any());
+    }
+
+    @DisplayName("Should throw an illegal argument exception when the update violates a constraint")
+    @Test
+    void testUpdateRecipe_whenCategoryDoesNotExist_throwIllegalArgumentException() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setVersion(0L);
+        recipe.setCategory(new CategoryEntity(99L, "Unknown"));
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenThrow(new DataIntegrityViolationException("fk_recipes_category"));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> recipeService.updateRecipe(recipe));
+        assertEquals("An error occurred while updating recipe: Recipe with id 1 refers to a category that does not exist or misses a required field", exception.getMessage());
+    }
+
     @DisplayName("Should throw an exception with a specific message when the recipe does not exist in the database")
     @Test
     void testUpdateRecipe_whenRecipeDoesNotExist_throwExceptionWithSpecificMessage() {
@@ -233,21 +500,38 @@ class RecipeServiceImplTest {
         RecipeEntity recipe = recipes.getFirst();
         recipe.setId(11L);
         recipe.setName("Updated Recipe 1");
-        when(recipeRepository.findById(11L)).thenReturn(Optional.empty());
+        recipe.setVersion(0L);
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenReturn(0);
+        when(recipeRepository.existsById(11L)).thenReturn(false);
 
         // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> recipeService.updateRecipe(recipe));
+        RuntimeException exception = assertThrows(RecipeNotFoundException.class, () -> recipeService.updateRecipe(recipe));
         assertEquals("An error occurred while updating recipe: Recipe with id 11 not found", exception.getMessage());
     }
 
+    @DisplayName("Should throw a conflict exception when the recipe was modified by another request")
+    @Test
+    void testUpdateRecipe_whenVersionIsStale_throwConflictException() {
+        // Given
+        RecipeEntity recipe = recipes.getFirst();
+        recipe.setVersion(0L);
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenReturn(0);
+        when(recipeRepository.existsById(1L)).thenReturn(true);
+
+        // When & Then
+        RuntimeException exception = assertThrows(RecipeVersionConflictException.class, () -> recipeService.updateRecipe(recipe));
+        assertEquals("An error occurred while updating recipe: Recipe with id 1 was modified by another request", exception.getMessage());
+        verify(ingredientDictionaryService, times(0)).resolveIngredients(any());
+    }
+
     @DisplayName("Should throw an exception with a specific message when the repository returns an error")
     @Test
     void testUpdateRecipe_whenRepositoryThrowsException_throwExceptionWithSpecificMessage() {
         // Given
         RecipeEntity recipe = recipes.getFirst();
         recipe.setName("Updated Recipe 1");
-        when(recipeRepository.findById(1L)).thenReturn(Optional.of(recipe));
-        when(recipeRepository.save(recipe)).thenThrow(new RuntimeException("Database error"));
+        recipe.setVersion(0L);
+        when(recipeRepository.updateIfVersionMatches(recipe)).thenThrow(new RuntimeException("Database error"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> recipeService.updateRecipe(recipe));
@@ -267,6 +551,7 @@ class RecipeServiceImplTest {
 
         // Then
         assertTrue(isDeleted);
+        verify(recipeIndexer).removeAfterCommit(id);
     }
 
     @DisplayName("Should throw an exception with a specific message when the id does not exist in the database")
@@ -284,4 +569,30 @@ class RecipeServiceImplTest {
         recipe.setId(11L);
         return recipe;
     }
-}
\ No newline at end of file
+
+    @DisplayName("Should select the id first and each requested field once")
+    @Test
+    void testGetAllRecipeFields_whenFieldsAreRepeated_thenSelectIdFirstAndEachFieldOnce() {
+        // Given
+        List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "name", "Spaghetti Bolognese"));
+        when(recipeRepository.findFieldsByIdGreaterThan(List.of("id", "name", "date"), 0L, 50)).thenReturn(rows);
+
+        // When
+        List<Map<String, Object>> actual = recipeService.getAllRecipeFields(null, 50, List.of("name", " date", "name", ""));
+
+        // Then
+        assertEquals(rows, actual);
+    }
+
+    @DisplayName("Should throw an IllegalArgumentException when a field cannot be selected")
+    @Test
+    void testGetAllRecipeFields_whenFieldIsUnknown_thenThrowIllegalArgumentException() {
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> recipeService.getAllRecipeFields(null, 50, List.of("name", "ingredients")));
+
+        // Then
+        assertEquals("Unknown field: ingredients. Selectable fields are id, name, description, date, directions, userId, version", exception.getMessage());
+        verify(recipeRepository, never()).findFieldsByIdGreaterThan(any(), anyLong(), anyInt());
+    }
+}
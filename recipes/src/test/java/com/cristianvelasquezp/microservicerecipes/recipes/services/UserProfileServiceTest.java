@@ -0,0 +1,179 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserSummaryEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.services.client.BatchingUserClient;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileServiceTest {
+
+    @Mock
+    private BatchingUserClient batchingUserClient;
+
+    @Mock
+    private UserSummaryService userSummaryService;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserProfileServiceImpl userProfileService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Ticker ticker = nanos::get;
+        lenient().when(userSummaryService.getSummaries(anyCollection())).thenReturn(Map.of());
+        userProfileService = new UserProfileServiceImpl(batchingUserClient, userSummaryService, meterRegistry, 100,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofMinutes(2), ticker, Runnable::run);
+    }
+
+    @DisplayName("Should call the users service only once for repeated lookups")
+    @Test
+    void testGetUserProfile_whenCalledTwice_loadOnce() {
+        // Given
+        when(batchingUserClient.getUserById(1L)).thenReturn(CompletableFuture.completedFuture(Optional.of(user(1L, "user1"))));
+
+        // When
+        userProfileService.getUserProfile(1L);
+        Optional<UserEntity> user = userProfileService.getUserProfile(1L);
+
+        // Then
+        assertEquals("user1", user.orElseThrow().getUsername());
+        verify(batchingUserClient, times(1)).getUserById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userProfiles").tag("result", "hit").counter().count());
+        assertEquals(1L, meterRegistry.get("cache.loads").tag("cache", "userProfiles").tag("result", "success").timer().count());
+    }
+
+    @DisplayName("Should cache unknown users until the negative ttl expires")
+    @Test
+    void testGetUserProfile_whenUserIsUnknown_cacheTheMissForTheNegativeTtl() {
+        // Given
+        when(batchingUserClient.getUserById(9L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When
+        userProfileService.getUserProfile(9L);
+        userProfileService.getUserProfile(9L);
+        nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+        Optional<UserEntity> user = userProfileService.getUserProfile(9L);
+
+        // Then
+        assertTrue(user.isEmpty());
+        verify(batchingUserClient, times(2)).getUserById(9L);
+    }
+
+    @DisplayName("Should serve the cached profile while reloading it after the refresh interval")
+    @Test
+    void testGetUserProfile_whenRefreshIntervalPassed_serveCachedAndReload() {
+        // Given
+        CompletableFuture<Optional<UserEntity>> reload = new CompletableFuture<>();
+        when(batchingUserClient.getUserById(1L)).thenReturn(CompletableFuture.completedFuture(Optional.of(user(1L, "user1"))), reload);
+        userProfileService.getUserProfile(1L);
+        nanos.addAndGet(Duration.ofMinutes(3).toNanos());
+
+        // When
+        Optional<UserEntity> stale = userProfileService.getUserProfile(1L);
+        reload.complete(Optional.of(user(1L, "renamed")));
+        Optional<UserEntity> refreshed = userProfileService.getUserProfile(1L);
+
+        // Then
+        assertEquals("user1", stale.orElseThrow().getUsername());
+        assertEquals("renamed", refreshed.orElseThrow().getUsername());
+        verify(batchingUserClient, times(2)).getUserById(1L);
+    }
+
+    @DisplayName("Should return only the known users of a multi-get")
+    @Test
+    void testGetUserProfiles_whenSomeUsersAreUnknown_returnKnownUsers() {
+        // Given
+        when(batchingUserClient.getUserById(1L)).thenReturn(CompletableFuture.completedFuture(Optional.of(user(1L, "user1"))));
+        when(batchingUserClient.getUserById(2L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When
+        Map<Long, UserEntity> users = userProfileService.getUserProfiles(List.of(1L, 2L));
+
+        // Then
+        assertEquals(1, users.size());
+        assertEquals("user1", users.get(1L).getUsername());
+    }
+
+    @DisplayName("Should rethrow the error of a failed load without caching it")
+    @Test
+    void testGetUserProfile_whenLoadFails_rethrowAndRetryNextTime() {
+        // Given
+        when(batchingUserClient.getUserById(1L)).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("users service unavailable")),
+                CompletableFuture.completedFuture(Optional.of(user(1L, "user1"))));
+
+        // When & Then
+        RuntimeException exception = assertThrows(IllegalStateException.class, () -> userProfileService.getUserProfile(1L));
+        assertEquals("users service unavailable", exception.getMessage());
+        assertTrue(userProfileService.getUserProfile(1L).isPresent());
+    }
+
+    @DisplayName("Should serve users known to the local summaries without calling the users service")
+    @Test
+    void testGetUserProfiles_whenUsersAreInTheSummaries_doNotCallTheUsersService() {
+        // Given
+        when(userSummaryService.getSummaries(anyCollection())).thenReturn(Map.of(
+                1L, new UserSummaryEntity(1L, "user1", "First", "Last", 3L, false),
+                2L, new UserSummaryEntity(2L, null, null, null, Long.MAX_VALUE, true)));
+
+        // When
+        Map<Long, UserEntity> users = userProfileService.getUserProfiles(List.of(1L, 2L));
+
+        // Then
+        assertEquals(1, users.size());
+        assertEquals("user1", users.get(1L).getUsername());
+        assertEquals("First", users.get(1L).getFirstName());
+        verify(batchingUserClient, never()).getUserById(any());
+    }
+
+    @DisplayName("Should read an evicted profile again")
+    @Test
+    void testEvictUserProfile_whenProfileIsCached_loadItAgain() {
+        // Given
+        when(batchingUserClient.getUserById(1L)).thenReturn(CompletableFuture.completedFuture(Optional.of(user(1L, "user1"))));
+        userProfileService.getUserProfile(1L);
+        when(userSummaryService.getSummaries(List.of(1L))).thenReturn(Map.of(1L, new UserSummaryEntity(1L, "renamed", null, null, 1L, false)));
+
+        // When
+        userProfileService.evictUserProfile(1L);
+        Optional<UserEntity> user = userProfileService.getUserProfile(1L);
+
+        // Then
+        assertEquals("renamed", user.orElseThrow().getUsername());
+        verify(batchingUserClient, times(1)).getUserById(1L);
+    }
+
+    private static UserEntity user(Long id, String username) {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
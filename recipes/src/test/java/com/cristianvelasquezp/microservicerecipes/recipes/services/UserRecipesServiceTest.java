@@ -0,0 +1,120 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.recipes.models.UserRecipesModel;
+import com.cristianvelasquezp.microservicerecipes.recipes.repositories.RecipeRepository;
+import com.cristianvelasquezp.microservicerecipes.recipes.utils.RecipeTestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserRecipesServiceTest {
+
+    @Mock
+    private UserProfileService userProfileService;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @InjectMocks
+    private UserRecipesServiceImpl userRecipesService;
+
+    private List<RecipeEntity> recipes;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        recipes = new RecipeTestUtils().createRecipeEntities();
+        user = new UserEntity();
+        user.setId(1L);
+        user.setUsername("user1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRecipesService.shutdown();
+    }
+
+    @DisplayName("Should return the user together with their recipes")
+    @Test
+    void testGetRecipesByUserId_whenUserExists_returnUserAndRecipes() {
+        // Given
+        when(userProfileService.getUserProfile(1L)).thenReturn(Optional.of(user));
+        when(recipeRepository.findByUserIdOrderByIdAsc(1)).thenReturn(recipes);
+
+        // When
+        UserRecipesModel userRecipes = userRecipesService.getRecipesByUserId(1L);
+
+        // Then
+        assertEquals("user1", userRecipes.getUser().getUsername());
+        assertEquals(recipes.size(), userRecipes.getRecipes().size());
+    }
+
+    @DisplayName("Should query the users service and the database at the same time")
+    @Test
+    @Timeout(5)
+    void testGetRecipesByUserId_whenBothCallsAreSlow_runThemConcurrently() {
+        // Given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(userProfileService.getUserProfile(1L)).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return Optional.of(user);
+        });
+        when(recipeRepository.findByUserIdOrderByIdAsc(1)).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return recipes;
+        });
+
+        // When
+        UserRecipesModel userRecipes = userRecipesService.getRecipesByUserId(1L);
+
+        // Then
+        assertEquals("user1", userRecipes.getUser().getUsername());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the user does not exist")
+    @Test
+    void testGetRecipesByUserId_whenUserDoesNotExist_throwExceptionWithSpecificMessage() {
+        // Given
+        when(userProfileService.getUserProfile(12L)).thenReturn(Optional.empty());
+        when(recipeRepository.findByUserIdOrderByIdAsc(12)).thenReturn(List.of());
+
+        // When & Then
+        RuntimeException exception = assertThrows(UserNotFoundException.class, () -> userRecipesService.getRecipesByUserId(12L));
+        assertEquals("User with id: 12 not found", exception.getMessage());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when the repository returns an error")
+    @Test
+    void testGetRecipesByUserId_whenRepositoryThrowsException_throwExceptionWithSpecificMessage() {
+        // Given
+        // the user lookup runs alongside the query and is cancelled when it fails, so it may never run
+        lenient().when(userProfileService.getUserProfile(1L)).thenReturn(Optional.of(user));
+        when(recipeRepository.findByUserIdOrderByIdAsc(1)).thenThrow(new RuntimeException("Database error"));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> userRecipesService.getRecipesByUserId(1L));
+        assertEquals("An error occurred while fetching recipes of user with id: 1 Database error", exception.getMessage());
+    }
+}
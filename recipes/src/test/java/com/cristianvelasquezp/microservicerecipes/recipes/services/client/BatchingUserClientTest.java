@@ -0,0 +1,123 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.UserEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingUserClientTest {
+
+    @Mock
+    private UserFeignClient userFeignClient;
+
+    private BatchingUserClient batchingUserClient;
+
+    @BeforeEach
+    void setUp() {
+        batchingUserClient = new BatchingUserClient(userFeignClient, Duration.ofMillis(20), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchingUserClient.shutdown();
+    }
+
+    @DisplayName("Should send lookups made within the window as one request")
+    @Test
+    void testGetUserById_whenLookupsShareAWindow_thenSendOneRequest() {
+        // Given
+        when(userFeignClient.getUsersByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+
+        // When
+        CompletableFuture<Optional<UserEntity>> first = batchingUserClient.getUserById(1L);
+        CompletableFuture<Optional<UserEntity>> second = batchingUserClient.getUserById(2L);
+        CompletableFuture<Optional<UserEntity>> repeated = batchingUserClient.getUserById(1L);
+
+        // Then
+        assertEquals(1L, first.join().orElseThrow().getId());
+        assertEquals(2L, second.join().orElseThrow().getId());
+        assertSame(first, repeated);
+        verify(userFeignClient, times(1)).getUsersByIds(List.of(1L, 2L));
+    }
+
+    @DisplayName("Should send a batch as soon as it reaches the maximum size")
+    @Test
+    void testGetUserById_whenBatchIsFull_thenSendWithoutWaitingForTheWindow() {
+        // Given
+        when(userFeignClient.getUsersByIds(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+
+        // When
+        List<CompletableFuture<Optional<UserEntity>>> lookups = LongStream.rangeClosed(1, 25)
+                .mapToObj(batchingUserClient::getUserById)
+                .toList();
+        lookups.forEach(CompletableFuture::join);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(userFeignClient, times(3)).getUsersByIds(batches.capture());
+        assertEquals(List.of(10, 10, 5), batches.getAllValues().stream().map(Collection::size).toList());
+    }
+
+    @DisplayName("Should complete with empty when the users service does not know the id")
+    @Test
+    void testGetUserById_whenUserIsUnknown_thenCompleteWithEmpty() {
+        // Given
+        when(userFeignClient.getUsersByIds(anyCollection())).thenReturn(List.of());
+
+        // When
+        Optional<UserEntity> user = batchingUserClient.getUserById(7L).join();
+
+        // Then
+        assertTrue(user.isEmpty());
+    }
+
+    @DisplayName("Should fail every lookup of a batch when the request fails")
+    @Test
+    void testGetUserById_whenRequestFails_thenCompleteExceptionally() {
+        // Given
+        when(userFeignClient.getUsersByIds(any())).thenThrow(new RuntimeException("users service unavailable"));
+
+        // When
+        CompletableFuture<Optional<UserEntity>> first = batchingUserClient.getUserById(1L);
+        CompletableFuture<Optional<UserEntity>> second = batchingUserClient.getUserById(2L);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, first::join);
+        assertEquals("users service unavailable", exception.getCause().getMessage());
+        assertThrows(CompletionException.class, second::join);
+    }
+
+    private static List<UserEntity> users(Collection<Long> ids) {
+        List<UserEntity> users = new ArrayList<>();
+        for (Long id : ids) {
+            UserEntity user = new UserEntity();
+            user.setId(id);
+            user.setUsername("user" + id);
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,303 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HedgingFeignClientTest {
+
+    private static final ServiceInstance SLOW = new DefaultServiceInstance("users-1", "users", "slow", 8081, false);
+
+    private static final ServiceInstance FAST = new DefaultServiceInstance("users-2", "users", "fast", 8082, false);
+
+    @Mock
+    private LoadBalancerClient loadBalancerClient;
+
+    @Mock
+    private Client loadBalanced;
+
+    @Mock
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    private final List<String> lifecycleEvents = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+    private final List<String> sentTo = new CopyOnWriteArrayList<>();
+
+    private final List<String> transformedFor = new CopyOnWriteArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HedgingFeignClient hedgingClient;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(loadBalancerClient.reconstructURI(any(), any())).thenAnswer(invocation -> {
+            ServiceInstance instance = invocation.getArgument(0);
+            URI original = invocation.getArgument(1);
+            return UriComponentsBuilder.fromUri(original).host(instance.getHost()).port(instance.getPort()).build().toUri();
+        });
+        lenient().when(loadBalancerClientFactory.getInstances("users", LoadBalancerLifecycle.class))
+                .thenReturn(Map.of("recording", new RecordingLifecycle()));
+    }
+
+    /**
+     * Records the callbacks a balancer that measures its instances would get.
+     */
+    private class RecordingLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+        @Override
+        public void onStart(org.springframework.cloud.client.loadbalancer.Request<RequestDataContext> request) {
+            lifecycleEvents.add("start");
+        }
+
+        @Override
+        public void onStartRequest(org.springframework.cloud.client.loadbalancer.Request<RequestDataContext> request,
+                                   org.springframework.cloud.client.loadbalancer.Response<ServiceInstance> lbResponse) {
+            lifecycleEvents.add("request " + lbResponse.getServer().getHost());
+        }
+
+        @Override
+        public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+            lifecycleEvents.add("complete " + completionContext.getLoadBalancerResponse().getServer().getHost()
+                    + " " + completionContext.status());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        if (hedgingClient != null) {
+            hedgingClient.close();
+        }
+    }
+
+    private HedgingFeignClient client(double budget) {
+        Client delegate = (request, options) -> {
+            String host = URI.create(request.url()).getHost();
+            sentTo.add(host);
+            transformedFor.add(request.headers().get("X-Instance").iterator().next());
+            if (host.equals(SLOW.getHost())) {
+                try {
+                    releaseSlow.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return response(request, host);
+        };
+        LoadBalancerFeignRequestTransformer tagInstance = (request, instance) -> Request.create(request.httpMethod(), request.url(),
+                Map.of("X-Instance", List.of(instance.getInstanceId())), request.body(), request.charset(), request.requestTemplate());
+        hedgingClient = new HedgingFeignClient(delegate, loadBalanced, loadBalancerClient, loadBalancerClientFactory, List.of(tagInstance),
+                "users", Duration.ofMillis(20), 0, budget, meterRegistry);
+        return hedgingClient;
+    }
+
+    private static Response response(Request request, String host) {
+        return Response.builder().request(request).status(200).headers(Map.of()).body(host, StandardCharsets.UTF_8).build();
+    }
+
+    private static Request get() {
+        return Request.create(Request.HttpMethod.GET, "http://users/users?ids=1", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    private double hedges(String outcome) {
+        var counter = meterRegistry.find(HedgingFeignClient.HEDGES_METRIC).tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @DisplayName("Should not hedge when the chosen instance answers within the delay")
+    @Test
+    void testExecute_whenPrimaryIsFast_thenSendOneRequest() throws IOException {
+        // Given
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(FAST);
+        HedgingFeignClient client = client(1);
+
+        // When
+        Response response = client.execute(get(), new Request.Options());
+
+        // Then
+        assertEquals(200, response.status());
+        assertEquals(List.of("fast"), sentTo);
+        assertEquals(0, hedges("sent"));
+    }
+
+    @DisplayName("Should send a hedge to another instance and return its response when the chosen instance is slow")
+    @Test
+    void testExecute_whenPrimaryIsSlow_thenReturnTheHedgedResponse() throws Exception {
+        // Given
+        HedgingFeignClient client = client(1);
+        // Earn a whole hedge from the budget first; these requests are answered in time.
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(FAST);
+        for (int i = 0; i < 10; i++) {
+            client.execute(get(), new Request.Options());
+        }
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(SLOW, FAST);
+        sentTo.clear();
+
+        // When
+        Response response = client.execute(get(), new Request.Options());
+
+        // Then
+        assertEquals("fast", new String(response.body().asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(List.of("slow", "fast"), sentTo);
+        assertEquals(1, hedges("sent"));
+        assertEquals(1, hedges("won"));
+    }
+
+    @DisplayName("Should transform both legs and report them to the load balancer lifecycle")
+    @Test
+    void testExecute_whenHedged_thenReportBothLegsToTheLifecycle() throws Exception {
+        // Given
+        HedgingFeignClient client = client(1);
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(FAST);
+        for (int i = 0; i < 10; i++) {
+            client.execute(get(), new Request.Options());
+        }
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(SLOW, FAST);
+        lifecycleEvents.clear();
+        transformedFor.clear();
+
+        // When
+        client.execute(get(), new Request.Options());
+        releaseSlow.countDown();
+
+        // Then
+        assertEquals(List.of("users-1", "users-2"), transformedFor);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!lifecycleEvents.contains("complete slow SUCCESS") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("start", "request slow", "start", "request fast", "complete fast SUCCESS", "complete slow SUCCESS"),
+                lifecycleEvents);
+    }
+
+    @DisplayName("Should wait for the chosen instance when the hedge budget is spent")
+    @Test
+    void testExecute_whenBudgetIsSpent_thenDoNotHedge() throws Exception {
+        // Given
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(SLOW, FAST);
+        HedgingFeignClient client = client(0);
+
+        // When
+        Thread release = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            releaseSlow.countDown();
+        });
+        Response response = client.execute(get(), new Request.Options());
+        release.join();
+
+        // Then
+        assertEquals(200, response.status());
+        assertEquals(List.of("slow"), sentTo);
+        assertEquals(1, hedges("over_budget"));
+    }
+
+    @DisplayName("Should wait for the chosen instance when the load balancer offers no other one")
+    @Test
+    void testExecute_whenLoadBalancerPicksTheSameInstance_thenDoNotHedge() throws Exception {
+        // Given
+        HedgingFeignClient client = client(1);
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(FAST);
+        for (int i = 0; i < 10; i++) {
+            client.execute(get(), new Request.Options());
+        }
+        when(loadBalancerClient.choose(eq("users"), any())).thenReturn(SLOW);
+        sentTo.clear();
+
+        // When
+        Thread release = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            releaseSlow.countDown();
+        });
+        Response response = client.execute(get(), new Request.Options());
+        release.join();
+
+        // Then
+        assertEquals(200, response.status());
+        assertEquals(List.of("slow"), sentTo);
+        assertEquals(1, hedges("no_alternate"));
+        assertEquals(0, hedges("sent"));
+    }
+
+    @DisplayName("Should send requests other than GET through the load-balanced client without hedging")
+    @Test
+    void testExecute_whenRequestIsNotAGet_thenUseTheLoadBalancedClient() throws IOException {
+        // Given
+        Request post = Request.create(Request.HttpMethod.POST, "http://users/users", Map.of(), new byte[0], StandardCharsets.UTF_8, null);
+        HedgingFeignClient client = client(1);
+        when(loadBalanced.execute(eq(post), any())).thenReturn(response(post, "users"));
+
+        // When
+        Response response = client.execute(post, new Request.Options());
+
+        // Then
+        assertEquals(200, response.status());
+        assertTrue(sentTo.isEmpty());
+        verify(loadBalancerClient, never()).choose(eq("users"), any());
+    }
+
+    @DisplayName("Should report percentiles of the recorded latencies")
+    @Test
+    void testLatencyWindow_whenSamplesAreRecorded_thenReturnThePercentile() {
+        // Given
+        HedgingFeignClient.LatencyWindow window = new HedgingFeignClient.LatencyWindow(100);
+
+        // When
+        for (long i = 1; i <= 100; i++) {
+            window.record(i);
+        }
+
+        // Then
+        assertEquals(95, window.percentile(95));
+        assertEquals(50, window.percentile(50));
+        assertEquals(100, window.percentile(100));
+    }
+}
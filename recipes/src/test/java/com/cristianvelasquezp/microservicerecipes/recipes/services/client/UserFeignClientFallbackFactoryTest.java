@@ -0,0 +1,81 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.client;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.exceptions.UserServiceUnavailableException;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserFeignClientFallbackFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserFeignClientFallbackFactory fallbackFactory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fallbackFactory = new UserFeignClientFallbackFactory(meterRegistry);
+    }
+
+    @DisplayName("Should pass a client error such as 404 through unchanged")
+    @Test
+    void testCreate_whenCauseIsAClientError_thenRethrowIt() {
+        // Given
+        FeignException notFound = new FeignException.NotFound("Not Found",
+                Request.create(Request.HttpMethod.GET, "/users/9", Map.of(), null, StandardCharsets.UTF_8, null), null, Map.of());
+
+        // When
+        FeignException thrown = assertThrows(FeignException.NotFound.class, () -> fallbackFactory.create(notFound).getUserById("9"));
+
+        // Then
+        assertSame(notFound, thrown);
+        assertTrue(meterRegistry.find(UserFeignClientFallbackFactory.FALLBACKS_METRIC).counters().isEmpty());
+    }
+
+    @DisplayName("Should report the users service as unavailable when its circuit is open")
+    @Test
+    void testCreate_whenCircuitIsOpen_thenThrowUnavailableAndCountIt() {
+        // Given
+        CallNotPermittedException circuitOpen = CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("users"));
+
+        // When
+        UserServiceUnavailableException thrown = assertThrows(UserServiceUnavailableException.class,
+                () -> fallbackFactory.create(circuitOpen).getUsersByIds(List.of(1L, 2L)));
+
+        // Then
+        assertSame(circuitOpen, thrown.getCause());
+        assertEquals(1, meterRegistry.get(UserFeignClientFallbackFactory.FALLBACKS_METRIC)
+                .tag("method", "getUsersByIds").tag("reason", "circuit_open").counter().count());
+    }
+
+    @DisplayName("Should count bulkhead rejections and other failures under their own reason")
+    @Test
+    void testCreate_whenBulkheadIsFullOrCallFails_thenCountEachReason() {
+        // Given
+        BulkheadFullException bulkheadFull = BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("users"));
+        RuntimeException failure = new RuntimeException("Connection refused");
+
+        // When
+        assertThrows(UserServiceUnavailableException.class, () -> fallbackFactory.create(bulkheadFull).getUsersByIds(List.of(1L)));
+        assertThrows(UserServiceUnavailableException.class, () -> fallbackFactory.create(failure).getUserById("1"));
+
+        // Then
+        assertEquals(1, meterRegistry.get(UserFeignClientFallbackFactory.FALLBACKS_METRIC)
+                .tag("method", "getUsersByIds").tag("reason", "bulkhead_full").counter().count());
+        assertEquals(1, meterRegistry.get(UserFeignClientFallbackFactory.FALLBACKS_METRIC)
+                .tag("method", "getUserById").tag("reason", "error").counter().count());
+    }
+}
@@ -0,0 +1,90 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientCoverageIndexTest {
+
+    private IngredientCoverageIndex ingredientCoverageIndex;
+
+    @BeforeEach
+    void setUp() {
+        ingredientCoverageIndex = new IngredientCoverageIndex();
+        ingredientCoverageIndex.index(recipe(1L, 1L, 2L));
+        ingredientCoverageIndex.index(recipe(2L, 1L, 2L, 3L));
+        ingredientCoverageIndex.index(recipe(3L, 1L, 2L, 3L, 4L, 5L));
+        ingredientCoverageIndex.index(recipe(4L, 6L, 7L));
+    }
+
+    @DisplayName("Should return only the recipes fully covered by the ingredients by default")
+    @Test
+    void testMatch_whenCoverageIsFull_thenReturnFullyCoveredRecipes() {
+        // When
+        List<IngredientCoverageIndex.Match> matches = ingredientCoverageIndex.match(List.of(1L, 2L, 3L), 1.0, 10);
+
+        // Then
+        assertEquals(List.of(2L, 1L), matches.stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+        assertEquals(3, matches.getFirst().matchedIngredients());
+        assertEquals(1.0, matches.getFirst().coverage());
+    }
+
+    @DisplayName("Should include partially covered recipes ranked by coverage")
+    @Test
+    void testMatch_whenCoverageIsPartial_thenReturnRecipesByCoverage() {
+        // When
+        List<IngredientCoverageIndex.Match> matches = ingredientCoverageIndex.match(List.of(1L, 2L, 4L), 0.5, 10);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), matches.stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+        assertEquals(0.6, matches.get(2).coverage(), 1e-9);
+    }
+
+    @DisplayName("Should ignore unknown ingredients and duplicates")
+    @Test
+    void testMatch_whenIngredientsAreUnknownOrRepeated_thenIgnoreThem() {
+        // When
+        List<IngredientCoverageIndex.Match> matches = ingredientCoverageIndex.match(List.of(6L, 6L, 99L, 7L), 1.0, 10);
+
+        // Then
+        assertEquals(1, matches.size());
+        assertEquals(4L, matches.getFirst().recipeId());
+        assertEquals(2, matches.getFirst().totalIngredients());
+    }
+
+    @DisplayName("Should return at most the requested number of recipes")
+    @Test
+    void testMatch_whenMoreRecipesMatchThanLimit_thenReturnLimit() {
+        // When
+        List<IngredientCoverageIndex.Match> matches = ingredientCoverageIndex.match(List.of(1L, 2L, 3L, 4L, 5L), 1.0, 2);
+
+        // Then
+        assertEquals(List.of(3L, 2L), matches.stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+    }
+
+    @DisplayName("Should use the new ingredients of a recipe once it is indexed again or removed")
+    @Test
+    void testIndex_whenRecipeIsReindexedOrRemoved_thenUseCurrentIngredients() {
+        // When
+        ingredientCoverageIndex.index(recipe(1L, 6L));
+        ingredientCoverageIndex.remove(4L);
+
+        // Then
+        assertEquals(List.of(1L), ingredientCoverageIndex.match(List.of(6L, 7L), 1.0, 10).stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+        assertEquals(List.of(2L), ingredientCoverageIndex.match(List.of(1L, 2L, 3L), 1.0, 10).stream().map(IngredientCoverageIndex.Match::recipeId).toList());
+    }
+
+    private static RecipeEntity recipe(Long id, Long... ingredientIds) {
+        RecipeEntity recipe = new RecipeEntity();
+        recipe.setId(id);
+        recipe.setIngredients(Arrays.stream(ingredientIds).map(ingredientId -> new IngredientEntity(ingredientId, "Ingredient " + ingredientId)).toList());
+        return recipe;
+    }
+}
@@ -0,0 +1,113 @@
+package com.cristianvelasquezp.microservicerecipes.recipes.services.index;
+
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.IngredientEntity;
+import com.cristianvelasquezp.microservicerecipes.recipes.Entities.RecipeEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeSearchIndexTest {
+
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        recipeSearchIndex = new RecipeSearchIndex();
+        recipeSearchIndex.index(recipe(1L, "Tomato Soup", "A warm soup", "Simmer the tomatoes", "tomato", "basil"));
+        recipeSearchIndex.index(recipe(2L, "Basil Pesto", "Fresh pesto with tomato on the side", "Blend everything", "basil", "garlic"));
+        recipeSearchIndex.index(recipe(3L, "Garlic Bread", "Crispy bread", "Bake until golden", "bread", "garlic"));
+    }
+
+    @DisplayName("Should rank recipes matching every query term above partial matches")
+    @Test
+    void testSearch_whenQueryHasSeveralTerms_thenRankFullMatchesFirst() {
+        // When
+        List<Long> ids = recipeSearchIndex.search("garlic bread", 10);
+
+        // Then
+        assertEquals(List.of(3L, 2L), ids);
+    }
+
+    @DisplayName("Should rank a name match above a description match")
+    @Test
+    void testSearch_whenTermIsInNameAndDescription_thenRankNameMatchFirst() {
+        // When
+        List<Long> ids = recipeSearchIndex.search("Tomato", 10);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @DisplayName("Should stop returning a recipe once it is removed")
+    @Test
+    void testRemove_whenRecipeIsRemoved_thenNoLongerReturned() {
+        // When
+        recipeSearchIndex.remove(3L);
+
+        // Then
+        assertEquals(List.of(2L), recipeSearchIndex.search("garlic", 10));
+        assertTrue(recipeSearchIndex.search("crispy", 10).isEmpty());
+        assertEquals(2, recipeSearchIndex.size());
+    }
+
+    @DisplayName("Should replace the terms of a recipe when it is indexed again")
+    @Test
+    void testIndex_whenRecipeIsReindexed_thenReplacePreviousTerms() {
+        // When
+        recipeSearchIndex.index(recipe(1L, "Pumpkin Soup", "A warm soup", "Roast the pumpkin", "pumpkin"));
+
+        // Then
+        assertEquals(List.of(2L), recipeSearchIndex.search("tomato", 10));
+        assertEquals(List.of(1L), recipeSearchIndex.search("pumpkin", 10));
+    }
+
+    @DisplayName("Should return at most the requested number of recipes")
+    @Test
+    void testSearch_whenMoreRecipesMatchThanLimit_thenReturnLimit() {
+        // When
+        List<Long> ids = recipeSearchIndex.search("basil garlic tomato", 2);
+
+        // Then
+        assertEquals(2, ids.size());
+    }
+
+    @DisplayName("Should rank recipes indexed out of id order the same way, lower id first on a tie")
+    @Test
+    void testSearch_whenRecipesAreIndexedOutOfOrder_thenRankByScoreThenId() {
+        // Given
+        recipeSearchIndex.index(recipe(7L, "Onion Soup", null, null, "onion"));
+        recipeSearchIndex.index(recipe(5L, "Onion Tart", null, null, "onion"));
+        recipeSearchIndex.index(recipe(6L, "Onion Rings", null, null, "onion", "flour"));
+
+        // When
+        List<Long> ids = recipeSearchIndex.search("onion", 10);
+
+        // Then
+        assertEquals(List.of(5L, 6L, 7L), ids);
+    }
+
+    @DisplayName("Should return nothing for a query made only of stop words")
+    @Test
+    void testSearch_whenQueryHasOnlyStopWords_thenReturnEmptyList() {
+        // When
+        List<Long> ids = recipeSearchIndex.search("the and of", 10);
+
+        // Then
+        assertTrue(ids.isEmpty());
+    }
+
+    private static RecipeEntity recipe(Long id, String name, String description, String directions, String... ingredients) {
+        RecipeEntity recipe = new RecipeEntity();
+        recipe.setId(id);
+        recipe.setName(name);
+        recipe.setDescription(description);
+        recipe.setDirections(directions);
+        recipe.setIngredients(Arrays.stream(ingredients).map(value -> new IngredientEntity(null, value)).toList());
+        return recipe;
+    }
+}
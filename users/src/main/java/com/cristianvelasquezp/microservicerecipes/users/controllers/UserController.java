@@ -19,15 +19,25 @@ public class UserController {
         this.userService = userService;
     }
 
+    /**
+     * With {@code fields}, each user is returned with only the listed properties, plus its id.
+     */
     @GetMapping("/users")
-    public List<UserEntity> getAllUsers() {
-        return userService.getAllUsers();
+    public List<?> getAllUsers(@RequestParam(required = false) List<String> fields) {
+        return fields != null ? userService.getUserFields(null, fields) : userService.getAllUsers();
+    }
+
+    @GetMapping(value = "/users", params = "ids")
+    public List<?> getUsersByIds(@RequestParam List<Long> ids, @RequestParam(required = false) List<String> fields) {
+        return fields != null ? userService.getUserFields(ids, fields) : userService.getUsersByIds(ids);
     }
 
     @GetMapping("/users/{id}")
-    public ResponseEntity<UserEntity> getUserById(@PathVariable String id) {
+    public ResponseEntity<?> getUserById(@PathVariable String id, @RequestParam(required = false) List<String> fields) {
         Long idLong = Long.parseLong(id);
-        Optional<UserEntity> user = userService.getUserById(idLong);
+        Optional<?> user = fields != null
+                ? userService.getUserFields(List.of(idLong), fields).stream().findFirst()
+                : userService.getUserById(idLong);
         if (user.isPresent()) {
             return ResponseEntity.ok(user.get());
         } else {
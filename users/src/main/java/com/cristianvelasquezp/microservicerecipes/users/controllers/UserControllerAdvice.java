@@ -2,7 +2,9 @@ package com.cristianvelasquezp.microservicerecipes.users.controllers;
 
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserVersionConflictException;
 import com.cristianvelasquezp.microservicerecipes.users.models.ErrorResponseModel;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -20,6 +22,16 @@ public class UserControllerAdvice {
         return ResponseEntity.status(404).body(new ErrorResponseModel("User not found", e.getMessage()));
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleUserVersionConflictException(UserVersionConflictException e) {
+        return ResponseEntity.status(409).body(new ErrorResponseModel("Conflict", e.getMessage()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponseModel> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(409).body(new ErrorResponseModel("Conflict", "The user was modified by another request"));
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorResponseModel> handleIllegalArgumentException(IllegalArgumentException e) {
         return ResponseEntity.status(400).body(new ErrorResponseModel("Bad request", e.getMessage()));
@@ -0,0 +1,78 @@
+package com.cristianvelasquezp.microservicerecipes.users.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+/**
+ * An event waiting to be relayed to the message broker. It is written in the same transaction as
+ * the change it describes and deleted once it has been sent.
+ */
+@Entity
+@Table(name = "user_outbox")
+public class OutboxEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long userId;
+    @Column(nullable = false)
+    private String eventType;
+    // A text column rather than a @Lob, which PostgreSQL stores as a large object that deleting
+    // the row leaves behind.
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    @CreationTimestamp
+    private Timestamp createdAt;
+
+    public OutboxEventEntity() {
+    }
+
+    public OutboxEventEntity(Long userId, String eventType, String payload) {
+        this.userId = userId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEventType() {
+        return this.eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Timestamp getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+}
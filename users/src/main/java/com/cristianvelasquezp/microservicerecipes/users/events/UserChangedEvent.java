@@ -0,0 +1,26 @@
+package com.cristianvelasquezp.microservicerecipes.users.events;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+
+/**
+ * Published on every user write so other services can keep their own copy of the public part of a
+ * user. {@code version} orders the events of one user: consumers ignore an event older than what
+ * they hold. A deleted user's event carries {@link #DELETED_VERSION}, as ids are never reused and
+ * nothing may come after it.
+ */
+public record UserChangedEvent(Type type, Long id, String username, String firstName, String lastName, Long version) {
+
+    public static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static UserChangedEvent of(Type type, UserEntity user) {
+        return new UserChangedEvent(type, user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(), user.getVersion());
+    }
+
+    public static UserChangedEvent deleted(Long id) {
+        return new UserChangedEvent(Type.DELETED, id, null, null, null, DELETED_VERSION);
+    }
+}
@@ -0,0 +1,36 @@
+package com.cristianvelasquezp.microservicerecipes.users.events;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.OutboxEventEntity;
+import com.cristianvelasquezp.microservicerecipes.users.repositories.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Publishes user change events through the outbox: the event is stored in the transaction of the
+ * change itself, so it is recorded if and only if the change commits. {@link UserOutboxRelay}
+ * sends it to the broker afterwards.
+ */
+@Component
+public class UserEventPublisher {
+
+    private final OutboxRepository outboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public UserEventPublisher(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(UserChangedEvent event) {
+        try {
+            outboxRepository.save(new OutboxEventEntity(event.id(), event.type().name(), objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("User event could not be serialized: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.cristianvelasquezp.microservicerecipes.users.events;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.OutboxEventEntity;
+import com.cristianvelasquezp.microservicerecipes.users.repositories.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Drains the outbox to the {@value #BINDING} binding. Each batch is claimed, sent and deleted in one
+ * transaction; claiming skips rows locked by another relay, so every instance of the service can
+ * relay at the same time. The binder only reports that a message was handed to the channel, so
+ * every message carries a publisher confirm correlation, and a row is deleted only once the broker
+ * has acknowledged its message; rows whose message was refused or not confirmed within
+ * {@code confirm-timeout} stay in the outbox and are sent again later. A failed send rolls the
+ * batch back. Delivery is therefore at least once; consumers use the event version to ignore
+ * duplicates and events that arrive out of order.
+ */
+@Component
+public class UserOutboxRelay {
+
+    public static final String BINDING = "userEvents-out-0";
+
+    private final OutboxRepository outboxRepository;
+
+    private final StreamBridge streamBridge;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final Duration confirmTimeout;
+
+    private final Timer batchTimer;
+
+    private final Counter relayedEvents;
+
+    private final Counter failedBatches;
+
+    private final Counter unconfirmedEvents;
+
+    public UserOutboxRelay(OutboxRepository outboxRepository, StreamBridge streamBridge, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry, @Value("${users.outbox.relay.batch-size:100}") int batchSize,
+                           @Value("${users.outbox.relay.confirm-timeout:5s}") Duration confirmTimeout) {
+        if (confirmTimeout.isNegative() || confirmTimeout.isZero()) {
+            throw new IllegalStateException("The outbox relay confirm timeout must be positive, not " + confirmTimeout);
+        }
+        this.outboxRepository = outboxRepository;
+        this.streamBridge = streamBridge;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.confirmTimeout = confirmTimeout;
+        this.batchTimer = Timer.builder("users.outbox.relay.batch")
+                .description("Time to claim, send and delete one batch of outbox events")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.relayedEvents = Counter.builder("users.outbox.relay.events")
+                .description("Outbox events sent to the broker")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("users.outbox.relay.failures")
+                .description("Outbox batches that failed and were rolled back")
+                .register(meterRegistry);
+        this.unconfirmedEvents = Counter.builder("users.outbox.relay.unconfirmed")
+                .description("Outbox events the broker refused or did not confirm in time, left to be sent again")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relays batches until the outbox is empty, or until the first failure. A batch with an
+     * unconfirmed event relays fewer than a full batch, which also ends the run.
+     */
+    @Scheduled(initialDelayString = "${users.outbox.relay.interval-ms:500}", fixedDelayString = "${users.outbox.relay.interval-ms:500}")
+    public void relayPending() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            failedBatches.increment();
+            Logger.getGlobal().warning("An error occurred while relaying user events: " + e.getMessage());
+        }
+    }
+
+    int relayBatch() {
+        long start = System.nanoTime();
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEventEntity> batch = outboxRepository.claimBatch(batchSize);
+            List<CorrelationData> correlations = new ArrayList<>(batch.size());
+            for (OutboxEventEntity event : batch) {
+                CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+                boolean sent = streamBridge.send(BINDING, MessageBuilder.withPayload(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                        .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                        .setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlation)
+                        .build());
+                if (!sent) {
+                    throw new IllegalStateException("User event " + event.getId() + " was not accepted by the binder");
+                }
+                correlations.add(correlation);
+            }
+            List<OutboxEventEntity> confirmed = confirmed(batch, correlations);
+            outboxRepository.deleteAllInBatch(confirmed);
+            if (confirmed.size() < batch.size()) {
+                unconfirmedEvents.increment(batch.size() - confirmed.size());
+                Logger.getGlobal().warning((batch.size() - confirmed.size()) + " user events were not confirmed by the broker and will be sent again");
+            }
+            return confirmed.size();
+        });
+        if (relayed != null && relayed > 0) {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            relayedEvents.increment(relayed);
+        }
+        return relayed == null ? 0 : relayed;
+    }
+
+    /**
+     * Waits, for at most the confirm timeout in all, for the broker to confirm the messages of the
+     * batch, and returns the events whose message it acknowledged.
+     */
+    private List<OutboxEventEntity> confirmed(List<OutboxEventEntity> batch, List<CorrelationData> correlations) {
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        List<OutboxEventEntity> confirmed = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                CorrelationData.Confirm confirm = correlations.get(i).getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(batch.get(i));
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                // left in the outbox
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return confirmed;
+    }
+}
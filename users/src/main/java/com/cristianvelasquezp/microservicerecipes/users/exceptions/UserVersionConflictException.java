@@ -0,0 +1,11 @@
+package com.cristianvelasquezp.microservicerecipes.users.exceptions;
+
+public class UserVersionConflictException extends RuntimeException {
+    public UserVersionConflictException(String message) {
+        super(message);
+    }
+
+    public UserVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
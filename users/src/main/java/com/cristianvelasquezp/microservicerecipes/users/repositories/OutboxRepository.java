@@ -0,0 +1,18 @@
+package com.cristianvelasquezp.microservicerecipes.users.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Claims the oldest events for the current transaction. Rows already claimed by another relay
+     * are skipped instead of waited for, so relays on several instances drain disjoint batches.
+     */
+    @Query(value = "SELECT * FROM user_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEventEntity> claimBatch(@Param("limit") int limit);
+}
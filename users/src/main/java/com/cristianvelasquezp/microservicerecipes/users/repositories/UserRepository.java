@@ -2,6 +2,24 @@ package com.cristianvelasquezp.microservicerecipes.users.repositories;
 
 import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>, UserRepositoryCustom {
+
+    /**
+     * Writes the user's columns in one statement, but only if the stored version still equals the
+     * one the caller read. Returns the number of rows updated, so 0 means the user is gone or was
+     * changed concurrently.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE UserEntity u
+            SET u.username = :#{#user.username}, u.email = :#{#user.email}, u.password = :#{#user.password},
+                u.firstName = :#{#user.firstName}, u.lastName = :#{#user.lastName}, u.status = :#{#user.status},
+                u.updatedAt = :#{#user.updatedAt}, u.version = u.version + 1
+            WHERE u.id = :#{#user.id} AND u.version = :#{#user.version}
+            """)
+    int updateIfVersionMatches(@Param("user") UserEntity user);
 }
@@ -0,0 +1,16 @@
+package com.cristianvelasquezp.microservicerecipes.users.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Only the given attributes of the users with the given ids, or of every user when
+     * {@code ids} is null, in id order. Each user comes back as a map from attribute name to
+     * value, in the order the attributes were given. {@code fields} must name basic attributes of
+     * the user.
+     */
+    List<Map<String, Object>> findFields(List<String> fields, Collection<Long> ids);
+}
@@ -0,0 +1,52 @@
+package com.cristianvelasquezp.microservicerecipes.users.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tuple query that selects only the requested columns, so the rest of the row is neither read
+ * nor managed by the persistence context.
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    UserRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(List<String> fields, Collection<Long> ids) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+        List<Selection<?>> columns = new ArrayList<>();
+        for (String field : fields) {
+            columns.add(user.get(field).alias(field));
+        }
+        query.multiselect(columns).orderBy(builder.asc(user.get("id")));
+        if (ids != null) {
+            query.where(user.get("id").in(ids));
+        }
+        return entityManager.createQuery(query).getResultStream()
+                .map(row -> {
+                    Map<String, Object> values = new LinkedHashMap<>();
+                    for (String field : fields) {
+                        values.put(field, row.get(field));
+                    }
+                    return values;
+                })
+                .toList();
+    }
+}
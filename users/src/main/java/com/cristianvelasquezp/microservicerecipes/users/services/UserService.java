@@ -2,12 +2,31 @@ package com.cristianvelasquezp.microservicerecipes.users.services;
 
 import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserService {
+
+    int MAX_BATCH_SIZE = 500;
+
+    /**
+     * The user attributes a client can ask for with {@code fields}. The id is always returned, and
+     * the password never is.
+     */
+    List<String> SELECTABLE_FIELDS = List.of("id", "username", "email", "firstName", "lastName", "createdAt", "updatedAt", "status", "version");
+
     public List<UserEntity> getAllUsers();
 
+    public List<UserEntity> getUsersByIds(Collection<Long> ids);
+
+    /**
+     * Only the requested fields of the users with the given ids, or of every user when
+     * {@code ids} is null.
+     */
+    public List<Map<String, Object>> getUserFields(Collection<Long> ids, List<String> fields);
+
     public Optional<UserEntity> getUserById(Long id);
 
     public UserEntity createUser(UserEntity user);
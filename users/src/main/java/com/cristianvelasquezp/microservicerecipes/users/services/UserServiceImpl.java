@@ -1,13 +1,23 @@
 package com.cristianvelasquezp.microservicerecipes.users.services;
 
 import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.users.events.UserChangedEvent;
+import com.cristianvelasquezp.microservicerecipes.users.events.UserEventPublisher;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserVersionConflictException;
 import com.cristianvelasquezp.microservicerecipes.users.repositories.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Logger;
 
 @Service
@@ -15,8 +25,11 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    private final UserEventPublisher userEventPublisher;
+
+    public UserServiceImpl(UserRepository userRepository, UserEventPublisher userEventPublisher) {
         this.userRepository = userRepository;
+        this.userEventPublisher = userEventPublisher;
     }
 
     public List<UserEntity> getAllUsers() {
@@ -27,6 +40,62 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * One {@code IN} query for the whole batch. Unknown ids are left out of the result.
+     */
+    @Override
+    public List<UserEntity> getUsersByIds(Collection<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " users can be fetched at once");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return userRepository.findAllById(Set.copyOf(ids));
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while fetching users: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Only the requested columns are read.
+     */
+    @Override
+    public List<Map<String, Object>> getUserFields(Collection<Long> ids, List<String> fields) {
+        if (ids != null && ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " users can be fetched at once");
+        }
+        List<String> selected = selectedFields(fields);
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return userRepository.findFields(selected, ids == null ? null : Set.copyOf(ids));
+        } catch (Exception e) {
+            throw new DatabaseConnectionException("An error occurred while fetching users: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The requested fields without blanks and duplicates, with the id first.
+     */
+    private static List<String> selectedFields(List<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ". Selectable fields are " + String.join(", ", SELECTABLE_FIELDS));
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
+    }
+
     @Override
     public Optional<UserEntity> getUserById(Long id) {
         try {
@@ -37,38 +106,68 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserEntity createUser(UserEntity user) {
+        UserEntity created;
         try {
-            return userRepository.save(user);
+            created = userRepository.save(user);
         } catch (Exception e) {
             Logger.getGlobal().severe("An error occurred while creating user: " + e.getMessage());
             throw new DatabaseConnectionException("An error occurred while creating user: " + e.getMessage(), e);
         }
+        userEventPublisher.publish(UserChangedEvent.of(UserChangedEvent.Type.CREATED, created));
+        return created;
     }
 
+    /**
+     * Optimistic update in one statement: the row is written only if the client still holds the
+     * current version. Only an update that matches no row costs one more query, to tell a missing
+     * user from a concurrent change. The user is returned and published as written, with the
+     * server-set update time and the version the statement moved to, rather than re-read; its
+     * creation time, which the update does not write, is left out rather than echoed from the client.
+     */
     @Override
+    @Transactional
     public UserEntity updateUser(UserEntity user) {
         if (user.getId() == null) {
             throw new IllegalArgumentException("User must have an id to be updated");
         }
-        userRepository.findById(user.getId()).orElseThrow(() -> new UserNotFoundException("An error occurred while updating user: User with id " + user.getId() + " not found"));
+        if (user.getVersion() == null) {
+            throw new IllegalArgumentException("User must have a version to be updated");
+        }
+        int updated;
         try {
-            return userRepository.save(user);
+            user.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+            updated = userRepository.updateIfVersionMatches(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("An error occurred while updating user: User with id " + user.getId() + " conflicts with another user or misses a required field", e);
         } catch (Exception e) {
             throw new DatabaseConnectionException("An error occurred while updating user: " + e.getMessage(), e);
         }
+        if (updated == 0) {
+            if (!userRepository.existsById(user.getId())) {
+                throw new UserNotFoundException("An error occurred while updating user: User with id " + user.getId() + " not found");
+            }
+            throw new UserVersionConflictException("An error occurred while updating user: User with id " + user.getId() + " was modified by another request");
+        }
+        user.setVersion(user.getVersion() + 1);
+        user.setCreatedAt(null);
+        userEventPublisher.publish(UserChangedEvent.of(UserChangedEvent.Type.UPDATED, user));
+        return user;
     }
 
     @Override
+    @Transactional
     public boolean deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException("An error occurred while deleting user: User with id " + id + " not found");
         }
         try {
             userRepository.deleteById(id);
-            return true;
         } catch (Exception e) {
             throw new DatabaseConnectionException("An error occurred while deleting user with id: " + id + " " + e.getMessage(), e);
         }
+        userEventPublisher.publish(UserChangedEvent.deleted(id));
+        return true;
     }
 }
@@ -3,16 +3,19 @@ package com.cristianvelasquezp.microservicerecipes.users.controllers;
 import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.DatabaseConnectionException;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserVersionConflictException;
 import com.cristianvelasquezp.microservicerecipes.users.models.ErrorResponseModel;
 import com.cristianvelasquezp.microservicerecipes.users.services.UserService;
 import com.cristianvelasquezp.microservicerecipes.users.utils.UserTestUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -20,6 +23,7 @@ import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -87,6 +91,26 @@ class UserControllerTest {
         assertEquals(0, response.size());
     }
 
+    @Test
+    @DisplayName("Should return the users with the given ids")
+    void testGetUsersByIds_whenUsersExist_thenReturnUsers() throws Exception {
+        //Given
+        when(userService.getUsersByIds(List.of(1L, 2L))).thenReturn(users.subList(0, 2));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/users?ids=1,2");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<UserEntity>> jacksonTypeReference = new TypeReference<List<UserEntity>>() {};
+
+        List<UserEntity> response = objectMapper.readValue(responseBodyAsString, jacksonTypeReference);
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(2, response.size());
+        assertEquals(2L, response.get(1).getId());
+    }
+
     @Test
     @DisplayName("Should return error 500 when there is an error fetching users")
     void testGetAllUsers_whenThereIsAnErrorFetchingUsers_thenReturnError500() throws Exception {
@@ -265,6 +289,30 @@ class UserControllerTest {
         assertEquals("User must have an id to be updated", response.getMessage());
     }
 
+    @Test
+    @DisplayName("Should return error 409 when the user was modified by another request")
+    void testUpdateUser_whenVersionIsStale_thenReturnError409() throws Exception {
+        // Given
+        UserEntity updatedUser = users.getFirst();
+
+        when(userService.updateUser(any(UserEntity.class))).thenThrow(new UserVersionConflictException("An error occurred while updating user: User with id 1 was modified by another request"));
+
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.put("/users")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(new ObjectMapper().writeValueAsString(updatedUser));
+        // When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String responseBodyAsString = result.getResponse().getContentAsString();
+
+        ErrorResponseModel response = objectMapper.readValue(responseBodyAsString, ErrorResponseModel.class);
+
+        // Then
+        assertEquals(409, result.getResponse().getStatus());
+        assertEquals("An error occurred while updating user: User with id 1 was modified by another request", response.getMessage());
+    }
+
     @Test
     @DisplayName("Should return true when a user is deleted successfully")
     void testDeleteUser_whenUserIsDeleted_thenReturnTrue() throws Exception {
@@ -319,4 +367,53 @@ class UserControllerTest {
         assertEquals("An error occurred while deleting user with id: 1 Connection refused", response.getMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Should return only the requested fields of the given users when fields are given")
+    void testGetUsersByIds_whenFieldsAreGiven_thenReturnOnlyThoseFields() throws Exception {
+        //Given
+        when(userService.getUserFields(List.of(1L, 2L), List.of("username", "firstName")))
+                .thenReturn(List.of(Map.of("id", 1L, "username", "user1", "firstName", "John")));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/users?ids=1,2&fields=username,firstName");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<Map<String, Object>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<Map<String, Object>>>() {});
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(List.of(Map.of("id", 1, "username", "user1", "firstName", "John")), response);
+    }
+
+    @Test
+    @DisplayName("Should return error 404 when fields are given for a user that does not exist")
+    void testGetUserById_whenFieldsAreGivenAndUserDoesNotExist_thenReturnError404() throws Exception {
+        //Given
+        when(userService.getUserFields(List.of(12L), List.of("username"))).thenReturn(List.of());
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/users/12?fields=username");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+
+        //Then
+        assertEquals(404, result.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should return users as CBOR when the client prefers CBOR")
+    void testGetUsersByIds_whenClientPrefersCbor_thenReturnCbor() throws Exception {
+        //Given
+        when(userService.getUsersByIds(List.of(1L, 2L))).thenReturn(users.subList(0, 2));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/users?ids=1,2")
+                .header("Accept", "application/cbor, application/json;q=0.9");
+        //When
+        MvcResult result = mockMvc.perform(requestBuilder).andReturn();
+
+        List<UserEntity> response = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(), new TypeReference<List<UserEntity>>() {});
+
+        //Then
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, result.getResponse().getContentType());
+        assertEquals(2, response.size());
+        assertEquals("user1", response.getFirst().getUsername());
+    }
+}
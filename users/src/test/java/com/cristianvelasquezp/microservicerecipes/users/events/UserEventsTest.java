@@ -0,0 +1,190 @@
+package com.cristianvelasquezp.microservicerecipes.users.events;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.users.repositories.OutboxRepository;
+import com.cristianvelasquezp.microservicerecipes.users.services.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"users.outbox.relay.interval-ms=3600000", "users.outbox.relay.confirm-timeout=200ms"})
+@Import({TestChannelBinderConfiguration.class, UserEventsTest.BrokerConfirmsConfig.class})
+class UserEventsTest {
+
+    private static final String DESTINATION = "users.events";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserOutboxRelay userOutboxRelay;
+
+    @Autowired
+    private OutputDestination outputDestination;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private BrokerConfirms brokerConfirms;
+
+    /**
+     * Confirms the messages sent to the test binder the way the broker would, acknowledging them
+     * unless told to refuse them or to leave them unconfirmed.
+     */
+    static class BrokerConfirms implements ChannelInterceptor {
+
+        enum Reply { ACK, NACK, NONE }
+
+        volatile Reply reply = Reply.ACK;
+
+        @Override
+        public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+            CorrelationData correlation = message.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, CorrelationData.class);
+            if (correlation != null && sent && reply != Reply.NONE) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(reply == Reply.ACK, null));
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class BrokerConfirmsConfig {
+
+        @Bean
+        @GlobalChannelInterceptor(patterns = UserOutboxRelay.BINDING)
+        BrokerConfirms brokerConfirms() {
+            return new BrokerConfirms();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerConfirms.reply = BrokerConfirms.Reply.ACK;
+        outboxRepository.deleteAll();
+        while (outputDestination.receive(0, DESTINATION) != null) {
+            // drop what a test left unread
+        }
+    }
+
+    private UserChangedEvent receive() throws IOException {
+        userOutboxRelay.relayPending();
+        Message<byte[]> message = outputDestination.receive(1000, DESTINATION);
+        assertNotNull(message, "No event was published");
+        return objectMapper.readValue(message.getPayload(), UserChangedEvent.class);
+    }
+
+    @DisplayName("Should publish an event for every user that is created, updated and deleted")
+    @Test
+    void testUserWrites_whenUserIsCreatedUpdatedAndDeleted_thenPublishAnEventForEach() throws IOException {
+        // Given
+        UserEntity user = new UserEntity(null, "jdoe", "jdoe@example.com", "secret", "John", "Doe", null, null, "ACTIVE");
+
+        // When
+        UserEntity created = userService.createUser(user);
+        UserChangedEvent createdEvent = receive();
+        created.setFirstName("Johnny");
+        userService.updateUser(created);
+        UserChangedEvent updatedEvent = receive();
+        userService.deleteUser(created.getId());
+        UserChangedEvent deletedEvent = receive();
+
+        // Then
+        assertEquals(new UserChangedEvent(UserChangedEvent.Type.CREATED, created.getId(), "jdoe", "John", "Doe", 0L), createdEvent);
+        assertEquals(new UserChangedEvent(UserChangedEvent.Type.UPDATED, created.getId(), "jdoe", "Johnny", "Doe", 1L), updatedEvent);
+        assertEquals(UserChangedEvent.deleted(created.getId()), deletedEvent);
+    }
+
+    @DisplayName("Should not publish an event when an update is rejected")
+    @Test
+    void testUpdateUser_whenVersionIsStale_thenPublishNothing() throws IOException {
+        // Given
+        UserEntity created = userService.createUser(new UserEntity(null, "asmith", "asmith@example.com", "secret", "Ann", "Smith", null, null, "ACTIVE"));
+        receive();
+        created.setVersion(5L);
+
+        // When
+        assertThrows(RuntimeException.class, () -> userService.updateUser(created));
+
+        // Then
+        userOutboxRelay.relayPending();
+        assertNull(outputDestination.receive(200, DESTINATION));
+    }
+
+    @DisplayName("Should relay pending events in order over several batches and leave the outbox empty")
+    @Test
+    void testRelayPending_whenMoreEventsThanABatch_thenRelayThemAllInOrder() throws IOException {
+        // Given
+        UserEntity user = userService.createUser(new UserEntity(null, "bjones", "bjones@example.com", "secret", "Bob", "Jones", null, null, "ACTIVE"));
+        for (int i = 0; i < 120; i++) {
+            user.setFirstName("Bob" + i);
+            user = userService.updateUser(user);
+        }
+
+        // When
+        userOutboxRelay.relayPending();
+
+        // Then
+        assertEquals(UserChangedEvent.Type.CREATED, objectMapper.readValue(outputDestination.receive(1000, DESTINATION).getPayload(), UserChangedEvent.class).type());
+        for (long version = 1; version <= 120; version++) {
+            Message<byte[]> message = outputDestination.receive(1000, DESTINATION);
+            assertNotNull(message, "Event for version " + version + " was not relayed");
+            assertEquals(version, objectMapper.readValue(message.getPayload(), UserChangedEvent.class).version());
+        }
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @DisplayName("Should keep an event in the outbox and send it again when the broker does not confirm it")
+    @Test
+    void testRelayPending_whenSendIsNotConfirmed_thenKeepTheEventAndSendItAgain() throws IOException {
+        // Given
+        brokerConfirms.reply = BrokerConfirms.Reply.NONE;
+        UserEntity created = userService.createUser(new UserEntity(null, "cbrown", "cbrown@example.com", "secret", "Carl", "Brown", null, null, "ACTIVE"));
+
+        // When
+        userOutboxRelay.relayPending();
+
+        // Then
+        assertNotNull(outputDestination.receive(1000, DESTINATION), "The event was not sent");
+        assertEquals(1, outboxRepository.count());
+        brokerConfirms.reply = BrokerConfirms.Reply.ACK;
+        UserChangedEvent resent = receive();
+        assertEquals(created.getId(), resent.id());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @DisplayName("Should keep an event in the outbox when the broker refuses it")
+    @Test
+    void testRelayPending_whenSendIsRefused_thenKeepTheEvent() {
+        // Given
+        brokerConfirms.reply = BrokerConfirms.Reply.NACK;
+        userService.createUser(new UserEntity(null, "dgreen", "dgreen@example.com", "secret", "Dan", "Green", null, null, "ACTIVE"));
+
+        // When
+        userOutboxRelay.relayPending();
+
+        // Then
+        assertNotNull(outputDestination.receive(1000, DESTINATION), "The event was not sent");
+        assertEquals(1, outboxRepository.count());
+    }
+}
@@ -0,0 +1,89 @@
+package com.cristianvelasquezp.microservicerecipes.users.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.OutboxEventEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users-outbox;MODE=PostgreSQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRepositoryTest {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        outboxRepository.deleteAllInBatch();
+        for (long id = 1; id <= 5; id++) {
+            outboxRepository.save(new OutboxEventEntity(id, "CREATED", "{}"));
+        }
+    }
+
+    private static List<Long> userIds(List<OutboxEventEntity> events) {
+        return events.stream().map(OutboxEventEntity::getUserId).toList();
+    }
+
+    @DisplayName("Should claim the oldest events up to the limit")
+    @Test
+    void testClaimBatch_whenLimited_thenReturnTheOldestEvents() {
+        // When
+        List<OutboxEventEntity> claimed = transactionTemplate.execute(status -> outboxRepository.claimBatch(3));
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), userIds(claimed));
+    }
+
+    @DisplayName("Should skip the events claimed by another transaction instead of waiting for them")
+    @Test
+    void testClaimBatch_whenEventsAreClaimedElsewhere_thenSkipThem() throws Exception {
+        // Given
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Long>> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            List<OutboxEventEntity> events = outboxRepository.claimBatch(3);
+            claimed.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return userIds(events);
+        }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        // When
+        List<Long> second = transactionTemplate.execute(status -> userIds(outboxRepository.claimBatch(3)));
+        release.countDown();
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), first.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(4L, 5L), second);
+    }
+}
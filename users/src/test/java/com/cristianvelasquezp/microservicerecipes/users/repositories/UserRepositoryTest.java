@@ -0,0 +1,84 @@
+package com.cristianvelasquezp.microservicerecipes.users.repositories;
+
+import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;MODE=PostgreSQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity newUser = new UserEntity();
+        newUser.setUsername("user1");
+        newUser.setEmail("user1@example.com");
+        newUser.setPassword("password1");
+        newUser.setStatus("active");
+        user = entityManager.persistFlushFind(newUser);
+        entityManager.clear();
+    }
+
+    @DisplayName("Should update a user and increment its version when the version matches")
+    @Test
+    void testUpdateIfVersionMatches_whenVersionMatches_thenUpdateUser() {
+        // Given
+        user.setUsername("updatedUser");
+
+        // When
+        int updated = userRepository.updateIfVersionMatches(user);
+
+        // Then
+        assertEquals(1, updated);
+        UserEntity stored = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("updatedUser", stored.getUsername());
+        assertEquals(user.getVersion() + 1, stored.getVersion());
+    }
+
+    @DisplayName("Should not update a user when the version is stale")
+    @Test
+    void testUpdateIfVersionMatches_whenVersionIsStale_thenUpdateNothing() {
+        // Given
+        user.setVersion(user.getVersion() + 1);
+        user.setUsername("updatedUser");
+
+        // When
+        int updated = userRepository.updateIfVersionMatches(user);
+
+        // Then
+        assertEquals(0, updated);
+        assertEquals("user1", userRepository.findById(user.getId()).orElseThrow().getUsername());
+    }
+
+    @DisplayName("Should select only the requested columns of the given users")
+    @Test
+    void testFindFields_whenIdsAreGiven_thenReturnOnlyThoseFields() {
+        // When
+        List<Map<String, Object>> found = userRepository.findFields(List.of("id", "username", "status"), List.of(user.getId(), -1L));
+
+        // Then
+        assertEquals(List.of(Map.of("id", user.getId(), "username", "user1", "status", "active")), found);
+        assertEquals(List.of("id", "username", "status"), List.copyOf(found.getFirst().keySet()));
+    }
+}
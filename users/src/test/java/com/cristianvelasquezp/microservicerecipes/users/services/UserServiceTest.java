@@ -1,7 +1,10 @@
 package com.cristianvelasquezp.microservicerecipes.users.services;
 
 import com.cristianvelasquezp.microservicerecipes.users.entities.UserEntity;
+import com.cristianvelasquezp.microservicerecipes.users.events.UserChangedEvent;
+import com.cristianvelasquezp.microservicerecipes.users.events.UserEventPublisher;
 import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserNotFoundException;
+import com.cristianvelasquezp.microservicerecipes.users.exceptions.UserVersionConflictException;
 import com.cristianvelasquezp.microservicerecipes.users.repositories.UserRepository;
 import com.cristianvelasquezp.microservicerecipes.users.utils.UserTestUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,12 +14,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +37,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserEventPublisher userEventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -78,6 +93,31 @@ class UserServiceTest {
 
     // Test for getUserById
 
+    @DisplayName("Should return the users with the given ids in one query")
+    @Test
+    void testGetUsersByIds_whenUsersExist_returnUsers() {
+        // Given
+        when(userRepository.findAllById(Set.of(1L, 2L))).thenReturn(users.subList(0, 2));
+
+        // When
+        List<UserEntity> actualUsers = userService.getUsersByIds(List.of(1L, 2L, 2L));
+
+        // Then
+        assertEquals(2, actualUsers.size());
+        verify(userRepository, times(1)).findAllById(any());
+    }
+
+    @DisplayName("Should throw an exception with a specific message when too many ids are requested")
+    @Test
+    void testGetUsersByIds_whenTooManyIds_throwExceptionWithSpecificMessage() {
+        // Given
+        List<Long> ids = LongStream.rangeClosed(1, UserService.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.getUsersByIds(ids));
+        assertEquals("At most 500 users can be fetched at once", exception.getMessage());
+    }
+
     @DisplayName("Should return a user entity when the user exists in the database")
     @Test
     void testGetUserById_whenUserExists_returnUserEntity() {
@@ -142,6 +182,7 @@ class UserServiceTest {
         assertEquals("JohnDoe", actualUser.getUsername());
         assertEquals("john.doe@example.com", actualUser.getEmail());
         assertEquals("password123", actualUser.getPassword());
+        verify(userEventPublisher).publish(UserChangedEvent.of(UserChangedEvent.Type.CREATED, actualUser));
     }
 
     @DisplayName("Should throw an exception with a specific message when the repository returns an error")
@@ -157,30 +198,50 @@ class UserServiceTest {
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.createUser(user));
         assertEquals("An error occurred while creating user: Database error", exception.getMessage());
+        verify(userEventPublisher, never()).publish(any());
     }
 
     //test for updateUser
 
-    @DisplayName("Should return a user entity with updated values when the user is updated")
+    @DisplayName("Should return the user as written, with the next version and no client-sent creation time, without reading it again")
     @Test
-    void testUpdateUser_whenUserIsUpdated_returnUserEntityWithUpdatedValues() {
+    void testUpdateUser_whenUserIsUpdated_returnWrittenUserWithoutReading() {
         // Given
         UserEntity user = users.getFirst();
         user.setUsername("UpdatedUser");
         user.setEmail("updated.user@example.com");
         user.setPassword("newpassword123");
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
+        user.setCreatedAt(new Timestamp(0));
+        user.setVersion(2L);
+        when(userRepository.updateIfVersionMatches(user)).thenReturn(1);
 
         // When
         UserEntity actualUser = userService.updateUser(user);
 
         // Then
+        verify(userRepository, times(0)).findById(any());
         assertNotNull(actualUser);
         assertEquals(1L, actualUser.getId());
+        assertEquals(3L, actualUser.getVersion());
         assertEquals("UpdatedUser", actualUser.getUsername());
-        assertEquals("updated.user@example.com", actualUser.getEmail());
-        assertEquals("newpassword123", actualUser.getPassword());
+        assertNotNull(actualUser.getUpdatedAt());
+        assertNull(actualUser.getCreatedAt());
+        verify(userEventPublisher).publish(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 1L, "UpdatedUser",
+                actualUser.getFirstName(), actualUser.getLastName(), 3L));
+    }
+
+    @DisplayName("Should throw an illegal argument exception when the update violates a constraint")
+    @Test
+    void testUpdateUser_whenUsernameIsTaken_throwIllegalArgumentException() {
+        // Given
+        UserEntity user = users.getFirst();
+        user.setVersion(0L);
+        when(userRepository.updateIfVersionMatches(user)).thenThrow(new DataIntegrityViolationException("uk_users_username"));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.updateUser(user));
+        assertEquals("An error occurred while updating user: User with id 1 conflicts with another user or misses a required field", exception.getMessage());
+        verify(userEventPublisher, never()).publish(any());
     }
 
     @DisplayName("Should throw an exception with a specific message when the user does not have an id")
@@ -197,6 +258,18 @@ class UserServiceTest {
         assertEquals("User must have an id to be updated", exception.getMessage());
     }
 
+    @DisplayName("Should throw an exception with a specific message when the user does not have a version")
+    @Test
+    void testUpdateUser_whenUserDoesNotHaveVersion_throwExceptionWithSpecificMessage() {
+        // Given
+        UserEntity user = users.getFirst();
+        user.setVersion(null);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.updateUser(user));
+        assertEquals("User must have a version to be updated", exception.getMessage());
+    }
+
     @DisplayName("Should throw an exception with a specific message when the user does not exist in the database")
     @Test
     void testUpdateUser_whenUserDoesNotExist_throwExceptionWithSpecificMessage() {
@@ -204,21 +277,38 @@ class UserServiceTest {
         UserEntity user = users.getFirst();
         user.setId(11L);
         user.setUsername("Updated User");
-        when(userRepository.findById(11L)).thenReturn(Optional.empty());
+        user.setVersion(0L);
+        when(userRepository.updateIfVersionMatches(user)).thenReturn(0);
+        when(userRepository.existsById(11L)).thenReturn(false);
 
         // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.updateUser(user));
+        RuntimeException exception = assertThrows(UserNotFoundException.class, () -> userService.updateUser(user));
         assertEquals("An error occurred while updating user: User with id 11 not found", exception.getMessage());
     }
 
+    @DisplayName("Should throw a conflict exception when the user was modified by another request")
+    @Test
+    void testUpdateUser_whenVersionIsStale_throwConflictException() {
+        // Given
+        UserEntity user = users.getFirst();
+        user.setVersion(0L);
+        when(userRepository.updateIfVersionMatches(user)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        // When & Then
+        RuntimeException exception = assertThrows(UserVersionConflictException.class, () -> userService.updateUser(user));
+        assertEquals("An error occurred while updating user: User with id 1 was modified by another request", exception.getMessage());
+        verify(userEventPublisher, never()).publish(any());
+    }
+
     @DisplayName("Should throw an exception with a specific message when the repository returns an error")
     @Test
     void testUpdateUser_whenRepositoryThrowsException_throwExceptionWithSpecificMessage() {
         // Given
         UserEntity user = users.getFirst();
         user.setUsername("UpdatedUser");
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenThrow(new RuntimeException("Database error"));
+        user.setVersion(0L);
+        when(userRepository.updateIfVersionMatches(user)).thenThrow(new RuntimeException("Database error"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.updateUser(user));
@@ -238,6 +328,7 @@ class UserServiceTest {
 
         // Then
         assertTrue(isDeleted);
+        verify(userEventPublisher).publish(UserChangedEvent.deleted(id));
     }
 
     @DisplayName("Should throw an exception with a specific message when the id does not exist in the database")
@@ -258,4 +349,30 @@ class UserServiceTest {
         user.setId(3L);
         return user;
     }
-}
\ No newline at end of file
+
+    @DisplayName("Should select the id first and each requested field once")
+    @Test
+    void testGetUserFields_whenFieldsAreRepeated_thenSelectIdFirstAndEachFieldOnce() {
+        // Given
+        List<Map<String, Object>> rows = List.of(Map.of("id", 1L, "username", "user1"));
+        when(userRepository.findFields(List.of("id", "username", "email"), null)).thenReturn(rows);
+
+        // When
+        List<Map<String, Object>> actual = userService.getUserFields(null, List.of("username", "email ", "username"));
+
+        // Then
+        assertEquals(rows, actual);
+    }
+
+    @DisplayName("Should throw an IllegalArgumentException when the password is requested")
+    @Test
+    void testGetUserFields_whenPasswordIsRequested_thenThrowIllegalArgumentException() {
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.getUserFields(List.of(1L), List.of("username", "password")));
+
+        // Then
+        assertTrue(exception.getMessage().startsWith("Unknown field: password."));
+        verify(userRepository, never()).findFields(any(), any());
+    }
+}